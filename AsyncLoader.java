@@ -0,0 +1,114 @@
+package ui;
+
+import utils.UIUtils;
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Runs DAO calls on background threads and delivers their results on the event thread
+public class AsyncLoader {
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "dao-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Component parent;
+    private final JProgressBar progressBar;
+    private SwingWorker<?, ?> current;
+
+    public AsyncLoader(Component parent) {
+        this.parent = parent;
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+    }
+
+    public JProgressBar getProgressBar() {
+        return progressBar;
+    }
+
+    // Loads a result; a newer request through this loader cancels it and its result is dropped
+    public <R> void load(Callable<R> query, Consumer<R> onSuccess) {
+        start(new SwingWorker<R, Void>() {
+            @Override
+            protected R doInBackground() throws Exception {
+                return query.call();
+            }
+
+            @Override
+            protected void done() {
+                if (finish(this)) {
+                    deliver(this, onSuccess);
+                }
+            }
+        });
+    }
+
+    // Runs one-off work, such as a write, that must not be cancelled; failures are reported against the parent
+    public static <R> void submit(Component parent, Callable<R> work, Consumer<R> onSuccess) {
+        submit(parent, work, onSuccess, () -> { });
+    }
+
+    public static <R> void submit(Component parent, Callable<R> work, Consumer<R> onSuccess, Runnable onFailure) {
+        executor.execute(new SwingWorker<R, Void>() {
+            @Override
+            protected R doInBackground() throws Exception {
+                return work.call();
+            }
+
+            @Override
+            protected void done() {
+                if (!deliver(this, onSuccess, parent)) {
+                    onFailure.run();
+                }
+            }
+        });
+    }
+
+    private void start(SwingWorker<?, ?> worker) {
+        if (current != null) {
+            // No interrupt: a DAO reload cut short would leave a partly filled cache behind
+            current.cancel(false);
+        }
+        current = worker;
+        progressBar.setIndeterminate(true);
+        progressBar.setString("Loading...");
+        progressBar.setVisible(true);
+        executor.execute(worker);
+    }
+
+    // True when the worker is still the latest request and completed normally
+    private boolean finish(SwingWorker<?, ?> worker) {
+        if (current != worker) {
+            return false;
+        }
+        current = null;
+        progressBar.setVisible(false);
+        return !worker.isCancelled();
+    }
+
+    private <R> void deliver(SwingWorker<R, ?> worker, Consumer<R> onSuccess) {
+        deliver(worker, onSuccess, parent);
+    }
+
+    private static <R> boolean deliver(SwingWorker<R, ?> worker, Consumer<R> onSuccess, Component parent) {
+        R result;
+        try {
+            result = worker.get();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            UIUtils.showError(parent, e.getCause().getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        onSuccess.accept(result);
+        return true;
+    }
+}
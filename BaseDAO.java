@@ -1,54 +1,725 @@
-package dao;
-
-import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
-
-public abstract class BaseDAO<T> {
-    protected String filename;
-    
-    protected BaseDAO(String filename) {
-        this.filename = filename;
-        createFileIfNotExists();
-    }
-    
-    protected void createFileIfNotExists() {
-        File file = new File(filename);
-        if (!file.exists()) {
-            try {
-                file.createNewFile();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-    }
-    
-    protected List<String> readAllLines() {
-        List<String> lines = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    lines.add(line);
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return lines;
-    }
-    
-    protected void writeAllLines(List<String> lines) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-            for (String line : lines) {
-                writer.write(line);
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-    
-    protected abstract T parseLine(String line);
-    protected abstract String formatLine(T item);
-} 
\ No newline at end of file
+package dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+public abstract class BaseDAO<T> {
+    // Order of keyset pages: digit runs compare by value, so B2 comes before B10
+    static final Comparator<String> ID_ORDER = BaseDAO::compareIds;
+
+    protected String filename;
+
+    // In-memory copy of the file and its primary-key index: record ID to record, in file order
+    private final Map<String, T> records = new LinkedHashMap<>();
+    // The same records as an array for streams, dropped on every change and rebuilt by the next stream
+    private volatile Object[] recordArray;
+    // The record IDs in ID_ORDER for keyset pages; built by the first page, then kept in step with every change
+    private volatile NavigableSet<String> idOrder;
+    private final RecordStore<T> store;
+    private boolean loaded;
+    // Queries share the read lock; loads and changes take the write lock and then the file lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ProcessLock processLock;
+    private long seenGeneration = -1;
+    // Binary copy of the cache for fast cold starts; null when snapshots are turned off
+    private final SnapshotFile<T> snapshot;
+
+    protected BaseDAO(String filename) {
+        this.filename = filename;
+        createFileIfNotExists();
+        processLock = ProcessLock.forFile(new File(filename));
+        store = createStore(StorageSettings.getMode());
+        snapshot = StorageSettings.isSnapshotEnabled() && store instanceof SnapshotStore ? new SnapshotFile<>(this) : null;
+    }
+
+    private RecordStore<T> createStore(StorageSettings.Mode mode) {
+        switch (mode) {
+            case LOG: return new LogStructuredStore<>(this);
+            case PAGED: return new PagedStore<>(this);
+            default: return new TextFileStore<>(this);
+        }
+    }
+
+    protected void createFileIfNotExists() {
+        File file = new File(filename);
+        if (!file.exists()) {
+            try {
+                file.createNewFile();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Streams every record of a data file, in either the current or the legacy format
+    protected void readRecords(File file, Consumer<T> action) throws IOException {
+        RecordReader.forEach(file, fields -> action.accept(parseRecord(fields)));
+    }
+
+    // Replaces the contents of a data file with the given records in the current format
+    protected void writeRecords(File file, Collection<T> items, boolean sync) throws IOException {
+        try (RecordWriter out = RecordWriter.create(file)) {
+            for (T item : items) {
+                writeRecord(item, out);
+                out.endRecord();
+            }
+            if (sync) {
+                out.sync();
+            }
+        }
+    }
+
+    // Writes a temp file beside the data file and renames it over the original, so a crash mid-write
+    // leaves either the old or the new contents, never a truncated file
+    protected void replaceRecords(File file, Collection<T> items, boolean sync) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try {
+            writeRecords(tempFile, items, sync);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        moveIntoPlace(tempFile, file, sync);
+    }
+
+    static void moveIntoPlace(File source, File target, boolean sync) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (sync) {
+            forceDirectory(target);
+        }
+    }
+
+    // Forces a file written without sync, and its directory entry, to the storage device
+    static void force(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        forceDirectory(file);
+    }
+
+    // Makes a rename durable; directories cannot be opened for this on Windows
+    private static void forceDirectory(File target) {
+        File parent = target.getAbsoluteFile().getParentFile();
+        try (FileChannel directory = FileChannel.open(parent.toPath(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // Nothing more can be done portably
+        }
+    }
+
+    // Reloads the cache when the files were changed outside this DAO; needs the write lock
+    private void reloadIfChanged() {
+        if (loaded && !store.isStale()) {
+            return;
+        }
+        processLock.acquire();
+        try {
+            records.clear();
+            recordArray = null;
+            idOrder = null;
+            if (snapshot != null && snapshot.load(records, signature())) {
+                ((SnapshotStore) store).loadedFromSnapshot();
+            } else {
+                records.clear();
+                store.load(records);
+                snapshotChanged();
+            }
+            clearIndexes();
+            for (T item : records.values()) {
+                indexRecord(item);
+            }
+            loaded = true;
+            seenGeneration = processLock.generation();
+        } finally {
+            processLock.release();
+        }
+    }
+
+    // The files' sizes, times and write count, which a snapshot must have been taken from to be used
+    long[] signature() {
+        long[] files = store.signature();
+        long[] signature = Arrays.copyOf(files, files.length + 1);
+        signature[files.length] = processLock.generation();
+        return signature;
+    }
+
+    boolean hasPendingChanges() {
+        return store.hasPendingChanges();
+    }
+
+    List<T> cachedRecordList() {
+        return new ArrayList<>(records.values());
+    }
+
+    private void snapshotChanged() {
+        if (snapshot != null) {
+            snapshot.scheduleSave();
+        }
+    }
+
+    // For stores: true when another DAO instance or process wrote the file since this one last saw it
+    boolean writtenElsewhere() {
+        return processLock.generation() != seenGeneration;
+    }
+
+    // For stores: called with the write lock held right after they change the files
+    void fileChanged() {
+        seenGeneration = processLock.advance();
+    }
+
+    // Runs a query under the shared read lock, so readers never wait for each other.
+    // A stale cache is first reloaded under the write lock, which is then downgraded.
+    protected <R> R read(Supplier<R> query) {
+        lock.readLock().lock();
+        if (!loaded || store.isStale()) {
+            lock.readLock().unlock();
+            lock.writeLock().lock();
+            try {
+                reloadIfChanged();
+                lock.readLock().lock();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Runs a change under the write lock and the cross-process file lock, on a cache reloaded after
+    // taking them, so another terminal's last write is never overwritten with older data
+    protected void write(Runnable update) {
+        lockForWrite();
+        try {
+            reloadIfChanged();
+            update.run();
+            snapshotChanged();
+        } finally {
+            unlockForWrite();
+        }
+    }
+
+    void lockForWrite() {
+        lock.writeLock().lock();
+        try {
+            processLock.acquire();
+        } catch (RuntimeException e) {
+            lock.writeLock().unlock();
+            throw e;
+        }
+    }
+
+    void unlockForWrite() {
+        try {
+            processLock.release();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Loads the file into the cache ahead of the first query
+    public void preload() {
+        read(() -> null);
+    }
+
+    protected List<T> findAll() {
+        return read(() -> {
+            List<T> result = new ArrayList<>(records.size());
+            for (T item : records.values()) {
+                result.add(copy(item));
+            }
+            return result;
+        });
+    }
+
+    protected T findById(String id) {
+        return read(() -> peekCopy(id));
+    }
+
+    protected List<String> findIds(Supplier<Collection<String>> lookup) {
+        return read(() -> new ArrayList<>(lookup.get()));
+    }
+
+    protected List<String> findAllIds() {
+        return findIds(records::keySet);
+    }
+
+    // One copy per requested ID, in order, with null where the record no longer exists
+    protected List<T> findByIds(List<String> ids) {
+        return read(() -> {
+            List<T> result = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                result.add(peekCopy(id));
+            }
+            return result;
+        });
+    }
+
+    // Copies the records whose IDs the lookup returns; the lookup runs after any reload
+    protected List<T> findByIndex(Supplier<Collection<String>> lookup) {
+        return read(() -> {
+            Collection<String> ids = lookup.get();
+            List<T> result = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                T item = records.get(id);
+                if (item != null) {
+                    result.add(copy(item));
+                }
+            }
+            return result;
+        });
+    }
+
+    // Probes the primary-key index once per distinct ID and keeps one field of each match
+    protected <V> Map<String, V> lookupField(Collection<String> ids, Function<T, V> field) {
+        return read(() -> {
+            Map<String, V> result = new HashMap<>();
+            for (String id : ids) {
+                T item = records.get(id);
+                if (item != null) {
+                    result.put(id, field.apply(item));
+                }
+            }
+            return result;
+        });
+    }
+
+    // Streams the matching records, copying each one only when the stream reaches it, so a limit or
+    // findFirst stops copying early. The stream sees the records as they were when it was opened and
+    // holds no lock or file, so it needs no closing. The condition is given the cached records
+    // themselves and must only read them.
+    @SuppressWarnings("unchecked")
+    protected Stream<T> stream(Predicate<? super T> condition) {
+        Object[] current = read(() -> {
+            // Readers exclude writers, so an array built here matches the records it is stored for
+            Object[] array = recordArray;
+            if (array == null) {
+                array = records.values().toArray();
+                recordArray = array;
+            }
+            return array;
+        });
+        return Arrays.stream(current).map(item -> (T) item).filter(condition).map(this::copy);
+    }
+
+    // Same, over the records whose IDs the lookup returns
+    protected Stream<T> streamByIndex(Supplier<Collection<String>> lookup) {
+        List<T> current = read(() -> {
+            Collection<String> ids = lookup.get();
+            List<T> result = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                T item = records.get(id);
+                if (item != null) {
+                    result.add(item);
+                }
+            }
+            return result;
+        });
+        return current.stream().map(this::copy);
+    }
+
+    // Counts in place, without copying any record
+    protected long count(Predicate<? super T> condition) {
+        return read(() -> {
+            long count = 0;
+            for (T item : records.values()) {
+                if (condition.test(item)) {
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    // Keyset pagination in ID order: up to limit records after afterId, or from the first when it is null.
+    // Unlike an offset, the key keeps a page on the same records while others are added or removed.
+    protected Page<T> findPageAfter(String afterId, int limit) {
+        return read(() -> {
+            NavigableSet<String> ids = idOrder();
+            return page(afterId == null ? ids : ids.tailSet(afterId, false), 0, limit, records.size());
+        });
+    }
+
+    // Same, over the records whose IDs the lookup returns, such as search hits. The lookup is walked
+    // once per page keeping only the first limit + 1 IDs after afterId, however many records match.
+    protected Page<T> findPageAfter(Supplier<Collection<String>> lookup, String afterId, int limit) {
+        return read(() -> {
+            NavigableSet<String> first = new TreeSet<>(ID_ORDER);
+            int total = 0;
+            for (String id : lookup.get()) {
+                if (!records.containsKey(id)) {
+                    continue;
+                }
+                total++;
+                if (afterId != null && compareIds(id, afterId) <= 0) {
+                    continue;
+                }
+                first.add(id);
+                if (first.size() > limit + 1) {
+                    first.pollLast();
+                }
+            }
+            return page(first, 0, limit, total);
+        });
+    }
+
+    // Offset pagination in the same order; the skipped IDs are still walked, so later pages cost more
+    protected Page<T> findPage(int offset, int limit) {
+        return read(() -> page(idOrder(), offset, limit, records.size()));
+    }
+
+    private Page<T> page(Iterable<String> ids, int offset, int limit, int totalCount) {
+        List<T> fetched = new ArrayList<>(limit + 1);
+        int skipped = 0;
+        for (String id : ids) {
+            if (fetched.size() > limit) {
+                break;
+            }
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                fetched.add(copy(records.get(id)));
+            }
+        }
+        return new Page<>(fetched, limit, totalCount);
+    }
+
+    // Called with the read lock held; readers exclude writers, so the set built here matches the records
+    private NavigableSet<String> idOrder() {
+        NavigableSet<String> ids = idOrder;
+        if (ids == null) {
+            ids = new TreeSet<>(ID_ORDER);
+            ids.addAll(records.keySet());
+            idOrder = ids;
+        }
+        return ids;
+    }
+
+    private static int compareIds(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            char x = a.charAt(i);
+            char y = b.charAt(j);
+            if (isDigit(x) && isDigit(y)) {
+                int runA = digitRunEnd(a, i);
+                int runB = digitRunEnd(b, j);
+                // Leading zeros do not change the value
+                while (i < runA - 1 && a.charAt(i) == '0') {
+                    i++;
+                }
+                while (j < runB - 1 && b.charAt(j) == '0') {
+                    j++;
+                }
+                if (runA - i != runB - j) {
+                    return Integer.compare(runA - i, runB - j);
+                }
+                for (; i < runA; i++, j++) {
+                    if (a.charAt(i) != b.charAt(j)) {
+                        return Character.compare(a.charAt(i), b.charAt(j));
+                    }
+                }
+            } else if (x != y) {
+                return Character.compare(x, y);
+            } else {
+                i++;
+                j++;
+            }
+        }
+        if (a.length() - i != b.length() - j) {
+            return Integer.compare(a.length() - i, b.length() - j);
+        }
+        // Equal by value, such as B07 and B7: fall back to plain order so distinct IDs never tie
+        return a.compareTo(b);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int digitRunEnd(String s, int start) {
+        int end = start;
+        while (end < s.length() && isDigit(s.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    protected void insert(T item) {
+        write(() -> {
+            validate(item);
+            String id = getId(item);
+            if (records.containsKey(id)) {
+                throw new DuplicateKeyException(id);
+            }
+            T stored = applyPut(item);
+            save(List.of(stored), List.of(), Collections.singletonMap(id, null));
+        });
+    }
+
+    // Versioned records are compare-and-set: the update must carry the version it was read at
+    protected void replace(T item) {
+        write(() -> {
+            validate(item);
+            if (isVersioned() || records.containsKey(getId(item))) {
+                T previous = records.get(getId(item));
+                T stored = applyUpdate(item);
+                save(List.of(stored), List.of(), Collections.singletonMap(getId(item), previous));
+                savedAs(item, stored);
+            }
+        });
+    }
+
+    protected void remove(String id) {
+        write(() -> {
+            T removed = applyRemove(id);
+            if (removed != null) {
+                save(List.of(), List.of(id), Collections.singletonMap(id, removed));
+            }
+        });
+    }
+
+    // Batch writes apply every record they can in one pass and one store write under a single lock;
+    // rejected records are reported in the result and do not stop the rest
+    protected BatchResult insertAll(Collection<T> items) {
+        return applyBatch(items, this::idOf, (item, stored) -> {}, item -> {
+            validate(item);
+            String id = getId(item);
+            if (records.containsKey(id)) {
+                throw new DuplicateKeyException(id);
+            }
+            return applyPut(item);
+        });
+    }
+
+    protected BatchResult replaceAll(Collection<T> items) {
+        return applyBatch(items, this::idOf, this::savedAs, item -> {
+            validate(item);
+            if (!isVersioned() && !records.containsKey(getId(item))) {
+                throw new DataAccessException("No record with ID " + getId(item) + " exists");
+            }
+            return applyUpdate(item);
+        });
+    }
+
+    protected BatchResult removeAll(Collection<String> ids) {
+        return applyBatch(ids, id -> id, (id, removed) -> {}, id -> {
+            if (applyRemove(id) == null) {
+                throw new DataAccessException("No record with ID " + id + " exists");
+            }
+            return null;
+        });
+    }
+
+    // The change returns the stored record for a put, or null for a delete. Once the store has written
+    // the batch, saved is called for every entry that went into it. If the store fails, the whole
+    // batch is undone and the DataAccessException is thrown instead of returning a result.
+    private <E> BatchResult applyBatch(Collection<E> entries, Function<E, String> idOf,
+                                       BiConsumer<E, T> saved, Function<E, T> change) {
+        BatchResult result = new BatchResult();
+        write(() -> {
+            List<T> puts = new ArrayList<>();
+            List<String> deletes = new ArrayList<>();
+            List<Runnable> applied = new ArrayList<>();
+            Map<String, T> previous = new HashMap<>();
+            for (E entry : entries) {
+                String id = idOf.apply(entry);
+                try {
+                    T before = id != null ? records.get(id) : null;
+                    T stored = change.apply(entry);
+                    if (!previous.containsKey(id)) {
+                        previous.put(id, before);
+                    }
+                    if (stored != null) {
+                        puts.add(stored);
+                    } else {
+                        deletes.add(id);
+                    }
+                    applied.add(() -> saved.accept(entry, stored));
+                    result.succeeded(id);
+                } catch (DataAccessException e) {
+                    result.failed(id, e);
+                }
+            }
+            if (!puts.isEmpty() || !deletes.isEmpty()) {
+                save(puts, deletes, previous);
+            }
+            applied.forEach(Runnable::run);
+        });
+        return result;
+    }
+
+    // Writes changes already applied to the cache. When the store cannot write them, the records are
+    // put back as they were, so the cache keeps matching the files, and the error is rethrown.
+    private void save(Collection<T> puts, Collection<String> deletes, Map<String, T> previous) {
+        try {
+            store.write(records, puts, deletes);
+        } catch (DataAccessException e) {
+            previous.forEach(this::restore);
+            throw e;
+        }
+    }
+
+    // Hands the version a record was stored under back to the caller's copy, so it can be saved again
+    void savedAs(T item, T stored) {
+        if (isVersioned()) {
+            setVersion(item, getVersion(stored));
+        }
+    }
+
+    private String idOf(T item) {
+        return item != null ? getId(item) : null;
+    }
+
+    // Rejects a record that must not be saved; called before every insert and update
+    protected void validate(T item) {
+        if (item == null) {
+            throw new InvalidRecordException("Missing record");
+        }
+        String id = getId(item);
+        if (id == null || id.isBlank()) {
+            throw new InvalidRecordException("Record ID is required");
+        }
+    }
+
+    // The methods below back UnitOfWork, which holds the write lock around all of them
+
+    void prepare() {
+        reloadIfChanged();
+    }
+
+    T peekCopy(String id) {
+        T item = records.get(id);
+        return item != null ? copy(item) : null;
+    }
+
+    // Stores a copy in the cache and its indexes and returns that copy
+    T applyPut(T item) {
+        recordArray = null;
+        T stored = copy(item);
+        T previous = records.put(getId(item), stored);
+        if (idOrder != null) {
+            idOrder.add(getId(item));
+        }
+        if (previous != null) {
+            unindexRecord(previous);
+        }
+        indexRecord(stored);
+        return stored;
+    }
+
+    // Checks the version of a versioned record and stores the change under the next version;
+    // the caller's copy keeps its version until savedAs, once the change is written
+    T applyUpdate(T item) {
+        if (!isVersioned()) {
+            return applyPut(item);
+        }
+        String id = getId(item);
+        T current = records.get(id);
+        long expected = getVersion(item);
+        if (current == null || getVersion(current) != expected) {
+            throw new VersionConflictException(id, expected, current == null ? -1 : getVersion(current));
+        }
+        T stored = copy(item);
+        setVersion(stored, expected + 1);
+        return applyPut(stored);
+    }
+
+    T applyRemove(String id) {
+        recordArray = null;
+        T removed = records.remove(id);
+        if (removed != null) {
+            unindexRecord(removed);
+            if (idOrder != null) {
+                idOrder.remove(id);
+            }
+        }
+        return removed;
+    }
+
+    // Puts back a record as it was before a rolled-back change; null means it did not exist
+    void restore(String id, T previous) {
+        recordArray = null;
+        if (previous == null) {
+            applyRemove(id);
+            return;
+        }
+        T current = records.put(id, previous);
+        if (idOrder != null) {
+            idOrder.add(id);
+        }
+        if (current != null) {
+            unindexRecord(current);
+        }
+        indexRecord(previous);
+    }
+
+    // Unlike the DAO's own writes, a failure here leaves the cache changed: the unit's journal still holds the change
+    void persist(Collection<T> puts, Collection<String> deletes) {
+        store.write(records, puts, deletes);
+        snapshotChanged();
+    }
+
+    void force() {
+        store.force();
+    }
+
+    // Direct access to a cached record for index code that already holds a DAO lock
+    protected T peek(String id) {
+        return records.get(id);
+    }
+
+    protected int recordCount() {
+        return records.size();
+    }
+
+    // The cached records themselves, for a query scanning them under the read lock
+    Collection<T> cachedValues() {
+        return records.values();
+    }
+
+    // Optimistic versioning hooks, for record types that carry a version
+    protected boolean isVersioned() { return false; }
+    protected long getVersion(T item) { return 0; }
+    protected void setVersion(T item, long version) {}
+
+    // Secondary index hooks, always called with the write lock held
+    protected void clearIndexes() {}
+    protected void indexRecord(T item) {}
+    protected void unindexRecord(T item) {}
+
+    protected abstract T parseRecord(RecordFields fields);
+    protected abstract void writeRecord(T item, RecordWriter out) throws IOException;
+    protected abstract String getId(T item);
+    protected abstract T copy(T item);
+}
@@ -0,0 +1,29 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Outcome of a batch write: the IDs that were saved and, per rejected record, why
+public class BatchResult {
+    private final List<String> succeededIds = new ArrayList<>();
+    private final Map<String, DataAccessException> failures = new LinkedHashMap<>();
+
+    void succeeded(String id) {
+        succeededIds.add(id);
+    }
+
+    void failed(String id, DataAccessException cause) {
+        failures.put(id, cause);
+    }
+
+    public List<String> getSucceededIds() { return Collections.unmodifiableList(succeededIds); }
+
+    public int getSucceededCount() { return succeededIds.size(); }
+
+    public Map<String, DataAccessException> getFailures() { return Collections.unmodifiableMap(failures); }
+
+    public boolean hasFailures() { return !failures.isEmpty(); }
+}
@@ -1,40 +1,54 @@
-package model;
-
-import java.io.Serializable;
-
-public class Book implements Serializable {
-    private String bookId;
-    private String title;
-    private String author;
-    private String isbn;
-    private boolean available;
-
-    public Book(String bookId, String title, String author, String isbn) {
-        this.bookId = bookId;
-        this.title = title;
-        this.author = author;
-        this.isbn = isbn;
-        this.available = true;
-    }
-
-    // Getters and Setters
-    public String getBookId() { return bookId; }
-    public void setBookId(String bookId) { this.bookId = bookId; }
-    
-    public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
-    
-    public String getAuthor() { return author; }
-    public void setAuthor(String author) { this.author = author; }
-    
-    public String getIsbn() { return isbn; }
-    public void setIsbn(String isbn) { this.isbn = isbn; }
-    
-    public boolean isAvailable() { return available; }
-    public void setAvailable(boolean available) { this.available = available; }
-
-    @Override
-    public String toString() {
-        return bookId + "," + title + "," + author + "," + isbn + "," + available;
-    }
+package model;
+
+import java.io.Serializable;
+
+public class Book implements Serializable {
+    private String bookId;
+    private String title;
+    private String author;
+    private String isbn;
+    private boolean available;
+    // Bumped on every saved update; an update must carry the version it was read at
+    private long version;
+
+    public Book(String bookId, String title, String author, String isbn) {
+        this.bookId = bookId;
+        this.title = title;
+        this.author = author;
+        this.isbn = isbn;
+        this.available = true;
+    }
+
+    public Book(Book other) {
+        this.bookId = other.bookId;
+        this.title = other.title;
+        this.author = other.author;
+        this.isbn = other.isbn;
+        this.available = other.available;
+        this.version = other.version;
+    }
+
+    // Getters and Setters
+    public String getBookId() { return bookId; }
+    public void setBookId(String bookId) { this.bookId = bookId; }
+    
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    
+    public String getAuthor() { return author; }
+    public void setAuthor(String author) { this.author = author; }
+    
+    public String getIsbn() { return isbn; }
+    public void setIsbn(String isbn) { this.isbn = isbn; }
+    
+    public boolean isAvailable() { return available; }
+    public void setAvailable(boolean available) { this.available = available; }
+    
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    @Override
+    public String toString() {
+        return bookId + "," + title + "," + author + "," + isbn + "," + available;
+    }
 } 
\ No newline at end of file
@@ -1,78 +1,180 @@
-package dao;
-
-import model.Book;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
-
-public class BookDAO extends BaseDAO<Book> {
-    
-    public BookDAO() {
-        super("books.txt");
-    }
-    
-    public List<Book> getAllBooks() {
-        return readAllLines().stream()
-                .map(this::parseLine)
-                .collect(Collectors.toList());
-    }
-    
-    public Book getBookById(String bookId) {
-        return readAllLines().stream()
-                .map(this::parseLine)
-                .filter(book -> book.getBookId().equals(bookId))
-                .findFirst()
-                .orElse(null);
-    }
-    
-    public List<Book> searchBooks(String query) {
-        String lowerQuery = query.toLowerCase();
-        return readAllLines().stream()
-                .map(this::parseLine)
-                .filter(book -> 
-                    book.getTitle().toLowerCase().contains(lowerQuery) ||
-                    book.getAuthor().toLowerCase().contains(lowerQuery) ||
-                    book.getIsbn().toLowerCase().contains(lowerQuery))
-                .collect(Collectors.toList());
-    }
-    
-    public void addBook(Book book) {
-        List<String> lines = readAllLines();
-        lines.add(formatLine(book));
-        writeAllLines(lines);
-    }
-    
-    public void updateBook(Book updatedBook) {
-        List<String> lines = readAllLines();
-        List<String> updatedLines = lines.stream()
-                .map(line -> {
-                    Book book = parseLine(line);
-                    return book.getBookId().equals(updatedBook.getBookId()) 
-                            ? formatLine(updatedBook) 
-                            : line;
-                })
-                .collect(Collectors.toList());
-        writeAllLines(updatedLines);
-    }
-    
-    public void deleteBook(String bookId) {
-        List<String> lines = readAllLines();
-        List<String> updatedLines = lines.stream()
-                .filter(line -> !parseLine(line).getBookId().equals(bookId))
-                .collect(Collectors.toList());
-        writeAllLines(updatedLines);
-    }
-    
-    @Override
-    protected Book parseLine(String line) {
-        String[] parts = line.split(",");
-        Book book = new Book(parts[0], parts[1], parts[2], parts[3]);
-        book.setAvailable(Boolean.parseBoolean(parts[4]));
-        return book;
-    }
-    
-    @Override
-    protected String formatLine(Book book) {
-        return book.toString();
-    }
-} 
\ No newline at end of file
+package dao;
+
+import model.Book;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+public class BookDAO extends BaseDAO<Book> {
+    private final TextIndex textIndex = new TextIndex();
+    
+    public BookDAO() {
+        super("books.txt");
+    }
+    
+    public List<Book> getAllBooks() {
+        return findAll();
+    }
+    
+    // Lazy alternatives to getAllBooks(): records are copied only as the stream reaches them
+    public Stream<Book> streamBooks() {
+        return stream(book -> true);
+    }
+    
+    // The filter runs on the stored books before copying and must not change them
+    public Stream<Book> streamBooks(Predicate<? super Book> filter) {
+        return stream(filter);
+    }
+    
+    public long countBooks(Predicate<? super Book> filter) {
+        return count(filter);
+    }
+    
+    // Conditions over the books, answered from the word index when it narrows them
+    public BookQuery query() {
+        return new BookQuery(this, textIndex);
+    }
+    
+    // Keyset page of books in ID order after the given ID, or the first page when it is null
+    public Page<Book> getBooksAfter(String afterBookId, int limit) {
+        return findPageAfter(afterBookId, limit);
+    }
+    
+    // Offset page in the same order; prefer getBooksAfter for paging through the whole list
+    public Page<Book> getBooksPage(int offset, int limit) {
+        return findPage(offset, limit);
+    }
+    
+    public Book getBookById(String bookId) {
+        return findById(bookId);
+    }
+    
+    public List<String> getAllBookIds() {
+        return findAllIds();
+    }
+    
+    public List<Book> getBooksByIds(List<String> bookIds) {
+        return findByIds(bookIds);
+    }
+    
+    public Map<String, String> getTitlesById(Collection<String> bookIds) {
+        return lookupField(bookIds, Book::getTitle);
+    }
+    
+    // Keyset page of the books where every word of the query starts a word of the title, author or ISBN,
+    // in ID order after the given book (null for the first page)
+    public Page<Book> searchBooks(String query, String afterBookId, int limit) {
+        List<String> terms = TextIndex.tokenize(query);
+        if (terms.isEmpty()) {
+            return new Page<>(new ArrayList<>(), false, 0);
+        }
+        return findPageAfter(() -> textIndex.search(terms), afterBookId, limit);
+    }
+    
+    // Typo-tolerant search: each word may be a prefix of, or a couple of edits away from, a word of the book
+    public Page<Book> searchBooksFuzzy(String query, String afterBookId, int limit) {
+        List<String> terms = TextIndex.tokenize(query);
+        if (terms.isEmpty()) {
+            return new Page<>(new ArrayList<>(), false, 0);
+        }
+        return findPageAfter(() -> textIndex.fuzzySearch(terms).keySet(), afterBookId, limit);
+    }
+    
+    public void addBook(Book book) {
+        insert(book);
+    }
+    
+    public void updateBook(Book updatedBook) {
+        replace(updatedBook);
+    }
+    
+    public void deleteBook(String bookId) {
+        remove(bookId);
+    }
+    
+    // Batch versions of the above: one pass, one write, and a per-book report of rejected records
+    public BatchResult addBooks(Collection<Book> books) {
+        return insertAll(books);
+    }
+    
+    public BatchResult updateBooks(Collection<Book> books) {
+        return replaceAll(books);
+    }
+    
+    public BatchResult deleteBooks(Collection<String> bookIds) {
+        return removeAll(bookIds);
+    }
+    
+    @Override
+    protected void validate(Book book) {
+        super.validate(book);
+        if (book.getTitle() == null || book.getTitle().isBlank()) {
+            throw new InvalidRecordException("Book " + book.getBookId() + " has no title");
+        }
+    }
+    
+    @Override
+    protected boolean isVersioned() {
+        return true;
+    }
+    
+    @Override
+    protected long getVersion(Book book) {
+        return book.getVersion();
+    }
+    
+    @Override
+    protected void setVersion(Book book, long version) {
+        book.setVersion(version);
+    }
+    
+    @Override
+    protected void clearIndexes() {
+        textIndex.clear();
+    }
+    
+    @Override
+    protected void indexRecord(Book book) {
+        textIndex.add(book.getBookId(), book.getTitle(), book.getAuthor(), book.getIsbn());
+    }
+    
+    @Override
+    protected void unindexRecord(Book book) {
+        textIndex.remove(book.getBookId(), book.getTitle(), book.getAuthor(), book.getIsbn());
+    }
+    
+    @Override
+    protected Book parseRecord(RecordFields fields) {
+        Book book = new Book(fields.nextString(), fields.nextString(), fields.nextString(), fields.nextString());
+        book.setAvailable(fields.nextBoolean());
+        // Rows saved before versioning have no version field
+        if (fields.hasNext()) {
+            book.setVersion(fields.nextLong());
+        }
+        return book;
+    }
+    
+    @Override
+    protected void writeRecord(Book book, RecordWriter out) throws IOException {
+        out.writeString(book.getBookId());
+        out.writeString(book.getTitle());
+        out.writeString(book.getAuthor());
+        out.writeString(book.getIsbn());
+        out.writeBoolean(book.isAvailable());
+        out.writeLong(book.getVersion());
+    }
+    
+    @Override
+    protected String getId(Book book) {
+        return book.getBookId();
+    }
+    
+    @Override
+    protected Book copy(Book book) {
+        return new Book(book);
+    }
+}
@@ -0,0 +1,53 @@
+package dao;
+
+import model.Book;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Query over books; get one from BookDAO.query(). Word conditions use the same prefix rule as searchBooks.
+public class BookQuery extends Query<Book, BookQuery> {
+    private final TextIndex textIndex;
+
+    BookQuery(BookDAO dao, TextIndex textIndex) {
+        super(dao);
+        this.textIndex = textIndex;
+    }
+
+    @Override
+    BookQuery self() {
+        return this;
+    }
+
+    // Every word must start a word of the title, author or ISBN
+    public BookQuery text(String words) {
+        List<String> terms = TextIndex.tokenize(words);
+        return words(terms, "text ~ " + words,
+                book -> TextIndex.matchesAll(terms, book.getTitle(), book.getAuthor(), book.getIsbn()));
+    }
+
+    public BookQuery title(String words) {
+        List<String> terms = TextIndex.tokenize(words);
+        return words(terms, "title ~ " + words, book -> TextIndex.matchesAll(terms, book.getTitle()));
+    }
+
+    public BookQuery author(String words) {
+        List<String> terms = TextIndex.tokenize(words);
+        return words(terms, "author ~ " + words, book -> TextIndex.matchesAll(terms, book.getAuthor()));
+    }
+
+    public BookQuery available() {
+        return where("available", Book::isAvailable);
+    }
+
+    public BookQuery issued() {
+        return where("issued", book -> !book.isAvailable());
+    }
+
+    // The text index covers all three fields, so for title and author it only narrows the candidates
+    private BookQuery words(List<String> terms, String description, Predicate<Book> filter) {
+        if (terms.isEmpty()) {
+            return self();
+        }
+        return indexed(description, "text", () -> textIndex.search(terms), filter);
+    }
+}
@@ -0,0 +1,384 @@
+package importer;
+
+import dao.BatchResult;
+import dao.DataAccessException;
+import dao.DuplicateKeyException;
+import dao.LibraryRepository;
+import model.Book;
+import model.Member;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Headless bulk import of books or members from a CSV file with a header row.
+// One thread reads and splits records, a pool parses and validates them, and the calling thread
+// de-duplicates and saves them through the DAO batch APIs. The queues between the stages are
+// bounded, so a slow writer holds the reader back instead of letting the file pile up in memory.
+//
+// Usage: java importer.CatalogImporter books|members <file.csv> [threads] [batchSize]
+public class CatalogImporter {
+    private static final int CHUNK_RECORDS = 1000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    // End-of-stream markers, compared by identity
+    private static final Chunk END = new Chunk(0, List.of());
+    private static final List<Parsed> DONE = new ArrayList<>();
+
+    public enum Kind { BOOKS, MEMBERS }
+
+    private final Kind kind;
+    private final int threads;
+    private final int batchSize;
+
+    private final AtomicLong read = new AtomicLong();
+    private final AtomicLong parsed = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong reportedErrors = new AtomicLong();
+
+    public CatalogImporter(Kind kind, int threads, int batchSize) {
+        this.kind = kind;
+        this.threads = Math.max(1, threads);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    // Raw records of one stretch of the file, numbered from firstLine
+    private static class Chunk {
+        final long firstLine;
+        final List<String> records;
+
+        Chunk(long firstLine, List<String> records) {
+            this.firstLine = firstLine;
+            this.records = records;
+        }
+    }
+
+    private static class Parsed {
+        final long line;
+        final String id;
+        final Object record;
+
+        Parsed(long line, String id, Object record) {
+            this.line = line;
+            this.id = id;
+            this.record = record;
+        }
+    }
+
+    public void run(File file) throws IOException, InterruptedException {
+        BlockingQueue<Chunk> rawChunks = new ArrayBlockingQueue<>(threads * 2);
+        BlockingQueue<List<Parsed>> parsedChunks = new ArrayBlockingQueue<>(threads * 2);
+        long started = System.nanoTime();
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "import-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> report(started, false), 1, 1, TimeUnit.SECONDS);
+
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            Map<String, Integer> columns = readHeader(in.readLine());
+
+            IOException[] readFailure = new IOException[1];
+            Thread reader = new Thread(() -> {
+                try {
+                    readChunks(in, rawChunks);
+                } catch (IOException e) {
+                    readFailure[0] = e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    for (int i = 0; i < threads; i++) {
+                        putQuietly(rawChunks, END);
+                    }
+                }
+            }, "import-reader");
+            reader.setDaemon(true);
+            reader.start();
+
+            List<Thread> parsers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Thread parser = new Thread(() -> parseChunks(columns, rawChunks, parsedChunks), "import-parser-" + i);
+                parser.setDaemon(true);
+                parser.start();
+                parsers.add(parser);
+            }
+
+            writeBatches(parsedChunks);
+
+            reader.join();
+            for (Thread parser : parsers) {
+                parser.join();
+            }
+            if (readFailure[0] != null) {
+                throw readFailure[0];
+            }
+        } finally {
+            reporter.shutdownNow();
+        }
+        report(started, true);
+    }
+
+    // Splits the file into records, joining lines while a quoted field is still open
+    private void readChunks(BufferedReader in, BlockingQueue<Chunk> out) throws IOException, InterruptedException {
+        List<String> records = new ArrayList<>(CHUNK_RECORDS);
+        long line = 1;
+        long firstLine = 2;
+        StringBuilder pending = null;
+        String text;
+        while ((text = in.readLine()) != null) {
+            line++;
+            if (pending != null) {
+                pending.append('\n').append(text);
+                text = pending.toString();
+            }
+            if (countQuotes(text) % 2 != 0) {
+                if (pending == null) {
+                    pending = new StringBuilder(text);
+                }
+                continue;
+            }
+            pending = null;
+            if (text.isBlank()) {
+                continue;
+            }
+            if (records.isEmpty()) {
+                firstLine = line;
+            }
+            records.add(text);
+            read.incrementAndGet();
+            if (records.size() == CHUNK_RECORDS) {
+                out.put(new Chunk(firstLine, records));
+                records = new ArrayList<>(CHUNK_RECORDS);
+            }
+        }
+        if (pending != null) {
+            reportError(line, "unterminated quoted field at end of file");
+        }
+        if (!records.isEmpty()) {
+            out.put(new Chunk(firstLine, records));
+        }
+    }
+
+    private void parseChunks(Map<String, Integer> columns, BlockingQueue<Chunk> in, BlockingQueue<List<Parsed>> out) {
+        try {
+            Chunk chunk;
+            while ((chunk = in.take()) != END) {
+                List<Parsed> result = new ArrayList<>(chunk.records.size());
+                long line = chunk.firstLine;
+                for (String record : chunk.records) {
+                    try {
+                        result.add(parse(line, splitFields(record), columns));
+                    } catch (IllegalArgumentException e) {
+                        reportError(line, e.getMessage());
+                    }
+                    // Approximate for records that span lines, exact otherwise
+                    line++;
+                }
+                parsed.addAndGet(result.size());
+                if (!result.isEmpty()) {
+                    out.put(result);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            putQuietly(out, DONE);
+        }
+    }
+
+    private Parsed parse(long line, List<String> fields, Map<String, Integer> columns) {
+        String id = field(fields, columns, "id");
+        if (id.isEmpty()) {
+            throw new IllegalArgumentException("missing id");
+        }
+        if (kind == Kind.BOOKS) {
+            String title = field(fields, columns, "title");
+            if (title.isEmpty()) {
+                throw new IllegalArgumentException("book " + id + " has no title");
+            }
+            Book book = new Book(id, title, field(fields, columns, "author"), field(fields, columns, "isbn"));
+            String available = field(fields, columns, "available");
+            book.setAvailable(available.isEmpty() || Boolean.parseBoolean(available));
+            return new Parsed(line, id, book);
+        }
+        String name = field(fields, columns, "name");
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("member " + id + " has no name");
+        }
+        return new Parsed(line, id, new Member(id, name, field(fields, columns, "email")));
+    }
+
+    // Saves the records in batches; runs on the calling thread. IDs repeated in the file, or already
+    // stored, are rejected by the DAO like any other duplicate, so no set of seen IDs grows with the file.
+    private void writeBatches(BlockingQueue<List<Parsed>> in) throws InterruptedException {
+        List<Parsed> batch = new ArrayList<>(batchSize);
+        int finished = 0;
+        while (finished < threads) {
+            List<Parsed> chunk = in.take();
+            if (chunk == DONE) {
+                finished++;
+                continue;
+            }
+            for (Parsed record : chunk) {
+                batch.add(record);
+                if (batch.size() == batchSize) {
+                    save(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            save(batch);
+        }
+    }
+
+    private void save(List<Parsed> batch) {
+        Map<String, Long> lines = new HashMap<>();
+        List<Book> books = new ArrayList<>();
+        List<Member> members = new ArrayList<>();
+        for (Parsed record : batch) {
+            lines.put(record.id, record.line);
+            if (kind == Kind.BOOKS) {
+                books.add((Book) record.record);
+            } else {
+                members.add((Member) record.record);
+            }
+        }
+        LibraryRepository repository = LibraryRepository.getInstance();
+        BatchResult result = kind == Kind.BOOKS
+                ? repository.getBookDAO().addBooks(books)
+                : repository.getMemberDAO().addMembers(members);
+        written.addAndGet(result.getSucceededCount());
+        for (Map.Entry<String, DataAccessException> failure : result.getFailures().entrySet()) {
+            if (failure.getValue() instanceof DuplicateKeyException) {
+                duplicates.incrementAndGet();
+            }
+            reportError(lines.getOrDefault(failure.getKey(), 0L), failure.getValue().getMessage());
+        }
+        // Failures are kept per ID, so further copies of an ID rejected within this batch have no entry
+        long repeats = batch.size() - result.getSucceededCount() - result.getFailures().size();
+        rejected.addAndGet(repeats);
+        duplicates.addAndGet(repeats);
+    }
+
+    private Map<String, Integer> readHeader(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("The file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitFields(header);
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).trim().toLowerCase(Locale.ROOT);
+            if (name.equals("bookid") || name.equals("memberid")) {
+                name = "id";
+            }
+            columns.put(name, i);
+        }
+        if (!columns.containsKey("id")) {
+            throw new IllegalArgumentException("The header row needs an id column");
+        }
+        return columns;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < fields.size() ? fields.get(index).trim() : "";
+    }
+
+    // RFC 4180 splitting: quoted fields may hold commas, line breaks and doubled quotes
+    static List<String> splitFields(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static int countQuotes(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void reportError(long line, String message) {
+        rejected.incrementAndGet();
+        if (reportedErrors.incrementAndGet() <= MAX_REPORTED_ERRORS) {
+            System.err.println("Line " + line + ": " + message);
+        } else if (reportedErrors.get() == MAX_REPORTED_ERRORS + 1) {
+            System.err.println("Further errors are counted but not listed");
+        }
+    }
+
+    private void report(long started, boolean done) {
+        double seconds = Math.max(1e-3, (System.nanoTime() - started) / 1e9);
+        System.out.printf("%s %,d read, %,d parsed, %,d saved, %,d rejected (%,d duplicate IDs) in %.1f s"
+                + " (%,.0f records/s)%n", done ? "Done:" : "Importing:", read.get(), parsed.get(), written.get(),
+                rejected.get(), duplicates.get(), seconds, written.get() / seconds);
+    }
+
+    private static <E> void putQuietly(BlockingQueue<E> queue, E item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: java importer.CatalogImporter books|members <file.csv> [threads] [batchSize]");
+            System.exit(2);
+        }
+        Kind kind = args[0].equalsIgnoreCase("members") ? Kind.MEMBERS : Kind.BOOKS;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : 20000;
+        try {
+            new CatalogImporter(kind, threads, batchSize).run(new File(args[1]));
+        } catch (IOException | IllegalArgumentException | DataAccessException e) {
+            System.err.println("Import failed: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
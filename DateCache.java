@@ -0,0 +1,74 @@
+package dao;
+
+import java.time.LocalDate;
+
+// Shares one LocalDate per calendar day so parsing a date column allocates nothing
+final class DateCache {
+    private static final int FIRST_YEAR = 1900;
+    private static final int LAST_YEAR = 2199;
+    private static final long FIRST_DAY = LocalDate.of(FIRST_YEAR, 1, 1).toEpochDay();
+    private static final LocalDate[] days =
+            new LocalDate[(int) (LocalDate.of(LAST_YEAR, 12, 31).toEpochDay() - FIRST_DAY + 1)];
+
+    private DateCache() {}
+
+    static LocalDate get(int year, int month, int day) {
+        if (year < FIRST_YEAR || year > LAST_YEAR || month < 1 || month > 12
+                || day < 1 || day > lengthOfMonth(year, month)) {
+            // Out of the cached range, or invalid and left to LocalDate to reject
+            return LocalDate.of(year, month, day);
+        }
+        int index = (int) (toEpochDay(year, month, day) - FIRST_DAY);
+        LocalDate date = days[index];
+        if (date == null) {
+            date = LocalDate.of(year, month, day);
+            days[index] = date;
+        }
+        return date;
+    }
+
+    static LocalDate ofEpochDay(long epochDay) {
+        long index = epochDay - FIRST_DAY;
+        if (index < 0 || index >= days.length) {
+            return LocalDate.ofEpochDay(epochDay);
+        }
+        LocalDate date = days[(int) index];
+        if (date == null) {
+            date = LocalDate.ofEpochDay(epochDay);
+            days[(int) index] = date;
+        }
+        return date;
+    }
+
+    // Same arithmetic as LocalDate.toEpochDay, without creating the LocalDate
+    private static long toEpochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y;
+        if (y >= 0) {
+            total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        } else {
+            total -= y / -4 - y / -100 + y / -400;
+        }
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - 719528;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2: return isLeapYear(year) ? 29 : 28;
+            case 4: case 6: case 9: case 11: return 30;
+            default: return 31;
+        }
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+}
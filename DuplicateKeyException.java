@@ -0,0 +1,12 @@
+package dao;
+
+public class DuplicateKeyException extends DataAccessException {
+    private final String id;
+
+    public DuplicateKeyException(String id) {
+        super("A record with ID " + id + " already exists");
+        this.id = id;
+    }
+
+    public String getId() { return id; }
+}
@@ -0,0 +1,87 @@
+package dao;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Batches the disk commits of one store: after enough records, or once the oldest change has waited long enough
+final class GroupCommit {
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "group-commit");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Pending changes are committed on a normal exit; only a crash can lose the open window
+    private static final List<GroupCommit> open = new CopyOnWriteArrayList<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (GroupCommit group : open) {
+                group.flush();
+            }
+        }, "group-commit-shutdown"));
+    }
+
+    private final BaseDAO<?> dao;
+    private final Runnable commit;
+    private int pending;
+    private ScheduledFuture<?> scheduled;
+
+    // The commit always runs with the DAO's write lock held, like the writes it batches
+    GroupCommit(BaseDAO<?> dao, Runnable commit) {
+        this.dao = dao;
+        this.commit = commit;
+        open.add(this);
+    }
+
+    // Called with the write lock held after each write; commits right away once the batch is full
+    void recorded(int records) {
+        pending += records;
+        if (pending >= StorageSettings.getGroupCommitRecords()) {
+            commitPending();
+        } else if (scheduled == null) {
+            scheduled = timer.schedule(this::flush, StorageSettings.getGroupCommitMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    boolean hasPending() {
+        return pending > 0;
+    }
+
+    void flush() {
+        dao.lockForWrite();
+        try {
+            commitPending();
+        } catch (DataAccessException e) {
+            // Nobody is waiting on a timed commit; the changes stay pending and the next timer retries
+            e.printStackTrace();
+        } finally {
+            dao.unlockForWrite();
+        }
+    }
+
+    // Commits the pending changes at once, with the write lock held; throws if the commit fails
+    void commitNow() {
+        commitPending();
+    }
+
+    // A failed commit keeps its changes pending, schedules a retry and rethrows
+    private void commitPending() {
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+        if (pending > 0) {
+            try {
+                commit.run();
+            } catch (DataAccessException e) {
+                scheduled = timer.schedule(this::flush, StorageSettings.getGroupCommitMillis(), TimeUnit.MILLISECONDS);
+                throw e;
+            }
+            pending = 0;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package dao;
+
+public class InvalidRecordException extends DataAccessException {
+    public InvalidRecordException(String message) {
+        super(message);
+    }
+}
@@ -1,82 +1,334 @@
-package dao;
-
-import model.Issue;
-import java.time.LocalDate;
-import java.util.List;
-import java.util.stream.Collectors;
-
-public class IssueDAO extends BaseDAO<Issue> {
-    
-    public IssueDAO() {
-        super("issues.txt");
-    }
-    
-    public List<Issue> getAllIssues() {
-        return readAllLines().stream()
-                .map(this::parseLine)
-                .collect(Collectors.toList());
-    }
-    
-    public Issue getIssueById(String issueId) {
-        return readAllLines().stream()
-                .map(this::parseLine)
-                .filter(issue -> issue.getIssueId().equals(issueId))
-                .findFirst()
-                .orElse(null);
-    }
-    
-    public List<Issue> getActiveIssues() {
-        return readAllLines().stream()
-                .map(this::parseLine)
-                .filter(issue -> issue.getReturnDate() == null)
-                .collect(Collectors.toList());
-    }
-    
-    public List<Issue> getIssuesByMemberId(String memberId) {
-        return readAllLines().stream()
-                .map(this::parseLine)
-                .filter(issue -> issue.getMemberId().equals(memberId))
-                .collect(Collectors.toList());
-    }
-    
-    public List<Issue> getIssuesByBookId(String bookId) {
-        return readAllLines().stream()
-                .map(this::parseLine)
-                .filter(issue -> issue.getBookId().equals(bookId))
-                .collect(Collectors.toList());
-    }
-    
-    public void addIssue(Issue issue) {
-        List<String> lines = readAllLines();
-        lines.add(formatLine(issue));
-        writeAllLines(lines);
-    }
-    
-    public void updateIssue(Issue updatedIssue) {
-        List<String> lines = readAllLines();
-        List<String> updatedLines = lines.stream()
-                .map(line -> {
-                    Issue issue = parseLine(line);
-                    return issue.getIssueId().equals(updatedIssue.getIssueId()) 
-                            ? formatLine(updatedIssue) 
-                            : line;
-                })
-                .collect(Collectors.toList());
-        writeAllLines(updatedLines);
-    }
-    
-    @Override
-    protected Issue parseLine(String line) {
-        String[] parts = line.split(",");
-        Issue issue = new Issue(parts[0], parts[1], parts[2], LocalDate.parse(parts[3]));
-        if (!parts[4].equals("null")) {
-            issue.setReturnDate(LocalDate.parse(parts[4]));
-        }
-        return issue;
-    }
-    
-    @Override
-    protected String formatLine(Issue issue) {
-        return issue.toString();
-    }
-} 
\ No newline at end of file
+package dao;
+
+import model.Issue;
+import model.IssueDetail;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+public class IssueDAO extends BaseDAO<Issue> {
+    // Secondary indexes over issue IDs, kept in step with every write
+    private final Map<String, Set<String>> issuesByMember = new HashMap<>();
+    private final Map<String, Set<String>> issuesByBook = new HashMap<>();
+    private final Set<String> activeIssues = new LinkedHashSet<>();
+    // Issue date to the IDs issued that day, for paging the history by date
+    private final NavigableMap<LocalDate, NavigableSet<String>> issuesByDate = new TreeMap<>();
+    // The same for issues not yet returned, so the active listing never walks returned ones
+    private final NavigableMap<LocalDate, NavigableSet<String>> activeByDate = new TreeMap<>();
+    
+    public IssueDAO() {
+        super("issues.txt");
+    }
+    
+    public List<Issue> getAllIssues() {
+        return findAll();
+    }
+    
+    // Lazy alternatives to the lists above: issues are copied only as the stream reaches them
+    public Stream<Issue> streamIssues() {
+        return stream(issue -> true);
+    }
+    
+    // The filter runs on the stored issues before copying and must not change them
+    public Stream<Issue> streamIssues(Predicate<? super Issue> filter) {
+        return stream(filter);
+    }
+    
+    public Stream<Issue> streamActiveIssues() {
+        return streamByIndex(() -> activeIssues);
+    }
+    
+    public long countIssues(Predicate<? super Issue> filter) {
+        return count(filter);
+    }
+    
+    // Keyset page of issues in ID order after the given ID, or the first page when it is null
+    public Page<Issue> getIssuesAfter(String afterIssueId, int limit) {
+        return findPageAfter(afterIssueId, limit);
+    }
+    
+    // Offset page in the same order; prefer getIssuesAfter for paging through the whole history
+    public Page<Issue> getIssuesPage(int offset, int limit) {
+        return findPage(offset, limit);
+    }
+    
+    // Keyset page of the history joined with titles and names, newest issue date first, continuing
+    // after the given issue (null for the first page). Only the page's issues are looked up and copied.
+    public Page<IssueDetail> getIssueDetailsPage(boolean activeOnly, Issue after, int limit,
+                                                 BookDAO bookDAO, MemberDAO memberDAO) {
+        Page<String> ids = read(() -> new Page<>(idsByDate(activeOnly, after, limit + 1), limit,
+                activeOnly ? activeIssues.size() : recordCount()));
+        List<IssueDetail> details = getIssueDetails(ids.getItems(), bookDAO, memberDAO);
+        // Issues deleted since the IDs were read are left out rather than shown blank
+        details.removeIf(Objects::isNull);
+        return new Page<>(details, ids.hasMore(), ids.getTotalCount());
+    }
+    
+    // Walks the date index from the newest day down, starting just past the given issue
+    private List<String> idsByDate(boolean activeOnly, Issue after, int limit) {
+        List<String> ids = new ArrayList<>(limit);
+        NavigableMap<LocalDate, NavigableSet<String>> byDate = activeOnly ? activeByDate : issuesByDate;
+        NavigableMap<LocalDate, NavigableSet<String>> days = after == null ? byDate
+                : byDate.headMap(dateKey(after), true);
+        for (Map.Entry<LocalDate, NavigableSet<String>> day : days.descendingMap().entrySet()) {
+            NavigableSet<String> sameDay = day.getValue();
+            if (after != null && day.getKey().equals(dateKey(after))) {
+                sameDay = sameDay.headSet(after.getIssueId(), false);
+            }
+            for (String id : sameDay.descendingSet()) {
+                if (ids.size() == limit) {
+                    return ids;
+                }
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+    
+    // Rows from before issue dates were required sort as the oldest
+    static LocalDate dateKey(Issue issue) {
+        return issue.getIssueDate() != null ? issue.getIssueDate() : LocalDate.MIN;
+    }
+    
+    // Conditions over the issue history, answered from whichever index narrows them most
+    public IssueQuery query() {
+        return new IssueQuery(this);
+    }
+    
+    // Index lookups for IssueQuery, which calls them under the read lock
+    Collection<String> memberIndex(String memberId) {
+        return issuesByMember.getOrDefault(memberId, Set.of());
+    }
+    
+    Collection<String> bookIndex(String bookId) {
+        return issuesByBook.getOrDefault(bookId, Set.of());
+    }
+    
+    Collection<String> activeIndex() {
+        return activeIssues;
+    }
+    
+    // Issues dated from (inclusive) up to to (exclusive), either end open when null. The view's size
+    // adds up the day sets and iterating it walks them, so nothing is copied.
+    Collection<String> dateIndex(LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, NavigableSet<String>> days = issuesByDate;
+        if (from != null) {
+            days = days.tailMap(from, true);
+        }
+        if (to != null) {
+            days = days.headMap(to, false);
+        }
+        Collection<NavigableSet<String>> sets = days.values();
+        return new AbstractCollection<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return sets.stream().flatMap(Set::stream).iterator();
+            }
+            
+            @Override
+            public int size() {
+                int size = 0;
+                for (Set<String> sameDay : sets) {
+                    size += sameDay.size();
+                }
+                return size;
+            }
+        };
+    }
+    
+    public Issue getIssueById(String issueId) {
+        return findById(issueId);
+    }
+    
+    public List<Issue> getActiveIssues() {
+        return findByIndex(() -> activeIssues);
+    }
+    
+    public List<Issue> getIssuesByMemberId(String memberId) {
+        return findByIndex(() -> issuesByMember.getOrDefault(memberId, Set.of()));
+    }
+    
+    public List<Issue> getIssuesByBookId(String bookId) {
+        return findByIndex(() -> issuesByBook.getOrDefault(bookId, Set.of()));
+    }
+    
+    public List<String> getAllIssueIds() {
+        return findAllIds();
+    }
+    
+    public List<String> getActiveIssueIds() {
+        return findIds(() -> activeIssues);
+    }
+    
+    // Hash join of issues with book titles and member names; unmatched sides stay null
+    public List<IssueDetail> getIssueDetails(boolean activeOnly, BookDAO bookDAO, MemberDAO memberDAO) {
+        return getIssueDetails(activeOnly ? getActiveIssueIds() : getAllIssueIds(), bookDAO, memberDAO);
+    }
+    
+    // Same join for the given issues, in order, with null where an issue no longer exists
+    public List<IssueDetail> getIssueDetails(List<String> issueIds, BookDAO bookDAO, MemberDAO memberDAO) {
+        List<Issue> issues = findByIds(issueIds);
+        Set<String> bookIds = new HashSet<>();
+        Set<String> memberIds = new HashSet<>();
+        for (Issue issue : issues) {
+            if (issue != null) {
+                bookIds.add(issue.getBookId());
+                memberIds.add(issue.getMemberId());
+            }
+        }
+        Map<String, String> titles = bookDAO.getTitlesById(bookIds);
+        Map<String, String> names = memberDAO.getNamesById(memberIds);
+        
+        List<IssueDetail> details = new ArrayList<>(issues.size());
+        for (Issue issue : issues) {
+            details.add(issue == null ? null 
+                    : new IssueDetail(issue, titles.get(issue.getBookId()), names.get(issue.getMemberId())));
+        }
+        return details;
+    }
+    
+    // Counts issues whose book or member is gone, checking each distinct book and member once
+    public int countOrphanedIssues(boolean activeOnly, BookDAO bookDAO, MemberDAO memberDAO) {
+        List<String> bookIds = findIds(issuesByBook::keySet);
+        Set<String> knownBooks = bookDAO.getTitlesById(bookIds).keySet();
+        List<String> memberIds = findIds(issuesByMember::keySet);
+        Set<String> knownMembers = memberDAO.getNamesById(memberIds).keySet();
+        return findIds(() -> {
+            Set<String> orphaned = new HashSet<>();
+            for (String bookId : bookIds) {
+                if (!knownBooks.contains(bookId)) {
+                    orphaned.addAll(issuesByBook.getOrDefault(bookId, Set.of()));
+                }
+            }
+            for (String memberId : memberIds) {
+                if (!knownMembers.contains(memberId)) {
+                    orphaned.addAll(issuesByMember.getOrDefault(memberId, Set.of()));
+                }
+            }
+            if (activeOnly) {
+                orphaned.retainAll(activeIssues);
+            }
+            return orphaned;
+        }).size();
+    }
+    
+    public void addIssue(Issue issue) {
+        insert(issue);
+    }
+    
+    public void updateIssue(Issue updatedIssue) {
+        replace(updatedIssue);
+    }
+    
+    // Batch versions of the above: one pass, one write, and a per-issue report of rejected records
+    public BatchResult addIssues(Collection<Issue> issues) {
+        return insertAll(issues);
+    }
+    
+    public BatchResult updateIssues(Collection<Issue> issues) {
+        return replaceAll(issues);
+    }
+    
+    public BatchResult deleteIssues(Collection<String> issueIds) {
+        return removeAll(issueIds);
+    }
+    
+    @Override
+    protected void validate(Issue issue) {
+        super.validate(issue);
+        if (issue.getBookId() == null || issue.getMemberId() == null || issue.getIssueDate() == null) {
+            throw new InvalidRecordException("Issue " + issue.getIssueId() + " needs a book, a member and an issue date");
+        }
+    }
+    
+    @Override
+    protected void clearIndexes() {
+        issuesByMember.clear();
+        issuesByBook.clear();
+        activeIssues.clear();
+        issuesByDate.clear();
+        activeByDate.clear();
+    }
+    
+    @Override
+    protected void indexRecord(Issue issue) {
+        issuesByMember.computeIfAbsent(issue.getMemberId(), k -> new LinkedHashSet<>()).add(issue.getIssueId());
+        issuesByBook.computeIfAbsent(issue.getBookId(), k -> new LinkedHashSet<>()).add(issue.getIssueId());
+        if (issue.getReturnDate() == null) {
+            activeIssues.add(issue.getIssueId());
+            activeByDate.computeIfAbsent(dateKey(issue), k -> new TreeSet<>(ID_ORDER)).add(issue.getIssueId());
+        }
+        issuesByDate.computeIfAbsent(dateKey(issue), k -> new TreeSet<>(ID_ORDER)).add(issue.getIssueId());
+    }
+    
+    @Override
+    protected void unindexRecord(Issue issue) {
+        removeFromIndex(issuesByMember, issue.getMemberId(), issue.getIssueId());
+        removeFromIndex(issuesByBook, issue.getBookId(), issue.getIssueId());
+        activeIssues.remove(issue.getIssueId());
+        removeFromDateIndex(issuesByDate, issue);
+        removeFromDateIndex(activeByDate, issue);
+    }
+    
+    private static void removeFromDateIndex(NavigableMap<LocalDate, NavigableSet<String>> index, Issue issue) {
+        NavigableSet<String> sameDay = index.get(dateKey(issue));
+        if (sameDay != null) {
+            sameDay.remove(issue.getIssueId());
+            if (sameDay.isEmpty()) {
+                index.remove(dateKey(issue));
+            }
+        }
+    }
+    
+    private static void removeFromIndex(Map<String, Set<String>> index, String key, String issueId) {
+        Set<String> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(issueId);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+    
+    @Override
+    protected Issue parseRecord(RecordFields fields) {
+        Issue issue = new Issue(fields.nextString(), fields.nextString(), fields.nextString(), fields.nextDate());
+        issue.setReturnDate(fields.nextDate());
+        return issue;
+    }
+    
+    @Override
+    protected void writeRecord(Issue issue, RecordWriter out) throws IOException {
+        out.writeString(issue.getIssueId());
+        out.writeString(issue.getBookId());
+        out.writeString(issue.getMemberId());
+        out.writeDate(issue.getIssueDate());
+        out.writeDate(issue.getReturnDate());
+    }
+    
+    @Override
+    protected String getId(Issue issue) {
+        return issue.getIssueId();
+    }
+    
+    @Override
+    protected Issue copy(Issue issue) {
+        return new Issue(issue);
+    }
+}
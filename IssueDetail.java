@@ -0,0 +1,26 @@
+package model;
+
+public class IssueDetail {
+    private final Issue issue;
+    private final String bookTitle;
+    private final String memberName;
+
+    // A null title or name means the issue refers to a book or member that no longer exists
+    public IssueDetail(Issue issue, String bookTitle, String memberName) {
+        this.issue = issue;
+        this.bookTitle = bookTitle;
+        this.memberName = memberName;
+    }
+
+    public Issue getIssue() { return issue; }
+
+    public String getBookTitle() { return bookTitle; }
+
+    public String getMemberName() { return memberName; }
+
+    public boolean isBookMissing() { return bookTitle == null; }
+
+    public boolean isMemberMissing() { return memberName == null; }
+
+    public boolean isOrphaned() { return bookTitle == null || memberName == null; }
+}
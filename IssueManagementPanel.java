@@ -3,28 +3,40 @@ package ui;
 import dao.BookDAO;
 import dao.MemberDAO;
 import dao.IssueDAO;
+import dao.LibraryRepository;
 import model.Book;
 import model.Member;
 import model.Issue;
+import model.IssueDetail;
 import utils.UIUtils;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.time.LocalDate;
 import java.util.List;
 
 public class IssueManagementPanel extends JPanel {
+    private static final String MISSING = "(missing)";
+    private static final int PAGE_SIZE = 100;
+    
     private BookDAO bookDAO;
     private MemberDAO memberDAO;
     private IssueDAO issueDAO;
+    private LibraryRepository repository;
     private JTable issueTable;
-    private DefaultTableModel tableModel;
+    private RecordTableModel<IssueDetail> tableModel;
     private JComboBox<String> filterComboBox;
+    private JLabel orphanLabel;
+    private AsyncLoader loader;
+    private AsyncLoader orphanLoader;
+    private PageNavigator<Issue> pageNavigator;
     
     public IssueManagementPanel() {
-        bookDAO = new BookDAO();
-        memberDAO = new MemberDAO();
-        issueDAO = new IssueDAO();
+        repository = LibraryRepository.getInstance();
+        bookDAO = repository.getBookDAO();
+        memberDAO = repository.getMemberDAO();
+        issueDAO = repository.getIssueDAO();
+        loader = new AsyncLoader(this);
+        orphanLoader = new AsyncLoader(this);
         
         setLayout(new BorderLayout());
         setBackground(UIUtils.BACKGROUND_COLOR);
@@ -45,9 +57,18 @@ public class IssueManagementPanel extends JPanel {
         String[] filters = {"All Issues", "Active Issues"};
         filterComboBox = new JComboBox<>(filters);
         filterComboBox.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        filterComboBox.addActionListener(e -> refreshTable());
+        filterComboBox.addActionListener(e -> {
+            pageNavigator.firstPage();
+            countOrphans();
+        });
         filterPanel.add(filterComboBox);
         
+        orphanLabel = new JLabel();
+        orphanLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        orphanLabel.setForeground(new Color(192, 57, 43));
+        filterPanel.add(orphanLabel);
+        filterPanel.add(loader.getProgressBar());
+        
         topPanel.add(filterPanel, BorderLayout.WEST);
         
         // Issue book button
@@ -61,12 +82,20 @@ public class IssueManagementPanel extends JPanel {
         // Create table
         String[] columns = {"Issue ID", "Book ID", "Book Title", "Member ID", "Member Name", 
                           "Issue Date", "Return Date", "Status", "Actions"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 8; // Only action buttons are editable
+        tableModel = new RecordTableModel<>(columns, 8, (detail, column) -> {
+            Issue issue = detail.getIssue();
+            switch (column) {
+                case 0: return issue.getIssueId();
+                case 1: return issue.getBookId();
+                case 2: return detail.isBookMissing() ? MISSING : detail.getBookTitle();
+                case 3: return issue.getMemberId();
+                case 4: return detail.isMemberMissing() ? MISSING : detail.getMemberName();
+                case 5: return issue.getIssueDate();
+                case 6: return issue.getReturnDate();
+                case 7: return issue.getReturnDate() == null ? "Active" : "Returned";
+                default: return issue.getReturnDate() == null ? "Return" : "View";
             }
-        };
+        });
         
         issueTable = new JTable(tableModel);
         UIUtils.setTableStyle(issueTable);
@@ -79,39 +108,36 @@ public class IssueManagementPanel extends JPanel {
         scrollPane.setBorder(BorderFactory.createEmptyBorder(0, 20, 20, 20));
         add(scrollPane, BorderLayout.CENTER);
         
+        pageNavigator = new PageNavigator<>(PAGE_SIZE, this::loadPage);
+        add(pageNavigator, BorderLayout.SOUTH);
+        
         // Load initial data
-        refreshTable();
+        pageNavigator.firstPage();
+        countOrphans();
     }
     
     private void refreshTable() {
-        tableModel.setRowCount(0);
-        List<Issue> issues;
-        
-        if (filterComboBox.getSelectedIndex() == 1) {
-            issues = issueDAO.getActiveIssues();
-        } else {
-            issues = issueDAO.getAllIssues();
-        }
-        
-        for (Issue issue : issues) {
-            Book book = bookDAO.getBookById(issue.getBookId());
-            Member member = memberDAO.getMemberById(issue.getMemberId());
-            
-            if (book != null && member != null) {
-                Object[] row = {
-                    issue.getIssueId(),
-                    book.getBookId(),
-                    book.getTitle(),
-                    member.getMemberId(),
-                    member.getName(),
-                    issue.getIssueDate(),
-                    issue.getReturnDate(),
-                    issue.getReturnDate() == null ? "Active" : "Returned",
-                    issue.getReturnDate() == null ? "Return" : "View"
-                };
-                tableModel.addRow(row);
-            }
-        }
+        pageNavigator.reload();
+        countOrphans();
+    }
+    
+    // Newest issues first; each page continues after the last issue of the one before.
+    // Changing the filter while a load is running cancels it through the shared loader.
+    private void loadPage(Issue after) {
+        boolean activeOnly = filterComboBox.getSelectedIndex() == 1;
+        loader.load(() -> issueDAO.getIssueDetailsPage(activeOnly, after, PAGE_SIZE, bookDAO, memberDAO), page -> {
+            tableModel.setRecords(page.getItems(), detail -> detail.getIssue().getIssueId());
+            IssueDetail last = page.getLast();
+            pageNavigator.pageLoaded(page, last == null ? null : last.getIssue());
+        });
+    }
+    
+    // The orphan count checks every book and member the history refers to, so it is
+    // worked out once per refresh or filter change rather than on each page turn
+    private void countOrphans() {
+        boolean activeOnly = filterComboBox.getSelectedIndex() == 1;
+        orphanLoader.load(() -> issueDAO.countOrphanedIssues(activeOnly, bookDAO, memberDAO), orphaned ->
+            orphanLabel.setText(orphaned == 0 ? "" : orphaned + " issue(s) refer to a deleted book or member"));
     }
     
     private void showIssueBookDialog() {
@@ -134,12 +160,6 @@ public class IssueManagementPanel extends JPanel {
         
         JComboBox<Book> bookComboBox = new JComboBox<>();
         bookComboBox.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        List<Book> availableBooks = bookDAO.getAllBooks().stream()
-                .filter(Book::isAvailable)
-                .toList();
-        for (Book book : availableBooks) {
-            bookComboBox.addItem(book);
-        }
         gbc.gridx = 1;
         panel.add(bookComboBox, gbc);
         
@@ -151,10 +171,6 @@ public class IssueManagementPanel extends JPanel {
         
         JComboBox<Member> memberComboBox = new JComboBox<>();
         memberComboBox.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        List<Member> members = memberDAO.getAllMembers();
-        for (Member member : members) {
-            memberComboBox.addItem(member);
-        }
         gbc.gridx = 1;
         panel.add(memberComboBox, gbc);
         
@@ -174,18 +190,19 @@ public class IssueManagementPanel extends JPanel {
             }
             
             // Create issue
-            String issueId = "I" + System.currentTimeMillis();
+            String issueId = repository.nextIssueId();
             Issue issue = new Issue(issueId, selectedBook.getBookId(), 
                                   selectedMember.getMemberId(), LocalDate.now());
-            issueDAO.addIssue(issue);
-            
-            // Update book availability
-            selectedBook.setAvailable(false);
-            bookDAO.updateBook(selectedBook);
-            
-            refreshTable();
-            dialog.dispose();
-            UIUtils.showSuccess(this, "Book issued successfully!");
+            issueButton.setEnabled(false);
+            // The issue and the book's availability are saved together or not at all
+            AsyncLoader.submit(dialog, () -> {
+                repository.issueBook(issue);
+                return issue;
+            }, issued -> {
+                refreshTable();
+                dialog.dispose();
+                UIUtils.showSuccess(this, "Book issued successfully!");
+            }, () -> issueButton.setEnabled(true));
         });
         
         JButton cancelButton = new JButton("Cancel");
@@ -199,6 +216,20 @@ public class IssueManagementPanel extends JPanel {
         gbc.gridwidth = 2;
         panel.add(buttonPanel, gbc);
         
+        // Fill the choices in the background; the modal dialog keeps pumping events meanwhile
+        issueButton.setEnabled(false);
+        AsyncLoader.submit(dialog, () -> bookDAO.streamBooks(Book::isAvailable).toList(), availableBooks -> {
+            for (Book book : availableBooks) {
+                bookComboBox.addItem(book);
+            }
+            AsyncLoader.submit(dialog, memberDAO::getAllMembers, members -> {
+                for (Member member : members) {
+                    memberComboBox.addItem(member);
+                }
+                issueButton.setEnabled(true);
+            });
+        });
+        
         dialog.add(panel);
         dialog.setVisible(true);
     }
@@ -256,34 +287,28 @@ public class IssueManagementPanel extends JPanel {
     }
     
     private void handleReturn(String issueId) {
-        Issue issue = issueDAO.getIssueById(issueId);
-        if (issue == null) return;
-        
-        if (UIUtils.showConfirm(this, "Are you sure you want to return this book?")) {
-            // Update issue
-            issue.setReturnDate(LocalDate.now());
-            issueDAO.updateIssue(issue);
-            
-            // Update book availability
-            Book book = bookDAO.getBookById(issue.getBookId());
-            if (book != null) {
-                book.setAvailable(true);
-                bookDAO.updateBook(book);
-            }
-            
-            refreshTable();
-            UIUtils.showSuccess(this, "Book returned successfully!");
+        if (!UIUtils.showConfirm(this, "Are you sure you want to return this book?")) {
+            return;
         }
+        AsyncLoader.submit(this, () -> repository.returnBook(issueId, LocalDate.now()), returned -> {
+            refreshTable();
+            if (returned) {
+                UIUtils.showSuccess(this, "Book returned successfully!");
+            }
+        });
     }
     
     private void showIssueDetails(String issueId) {
-        Issue issue = issueDAO.getIssueById(issueId);
-        if (issue == null) return;
-        
-        Book book = bookDAO.getBookById(issue.getBookId());
-        Member member = memberDAO.getMemberById(issue.getMemberId());
-        
-        if (book == null || member == null) return;
+        AsyncLoader.submit(this, () -> issueDAO.getIssueDetails(List.of(issueId), bookDAO, memberDAO).get(0), 
+                detail -> {
+            if (detail != null) {
+                showIssueDetails(detail);
+            }
+        });
+    }
+    
+    private void showIssueDetails(IssueDetail detail) {
+        Issue issue = detail.getIssue();
         
         JDialog dialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(this), 
                                    "Issue Details", true);
@@ -301,12 +326,12 @@ public class IssueManagementPanel extends JPanel {
         gbc.gridx = 0; gbc.gridy = 0;
         panel.add(new JLabel("Book:"), gbc);
         gbc.gridx = 1;
-        panel.add(new JLabel(book.getTitle()), gbc);
+        panel.add(new JLabel(detail.isBookMissing() ? MISSING : detail.getBookTitle()), gbc);
         
         gbc.gridx = 0; gbc.gridy = 1;
         panel.add(new JLabel("Member:"), gbc);
         gbc.gridx = 1;
-        panel.add(new JLabel(member.getName()), gbc);
+        panel.add(new JLabel(detail.isMemberMissing() ? MISSING : detail.getMemberName()), gbc);
         
         gbc.gridx = 0; gbc.gridy = 2;
         panel.add(new JLabel("Issue Date:"), gbc);
@@ -0,0 +1,58 @@
+package dao;
+
+import model.Issue;
+import java.time.LocalDate;
+
+// Query over the issue history; get one from IssueDAO.query(). Issues saved without a date count as
+// issued before any date.
+public class IssueQuery extends Query<Issue, IssueQuery> {
+    private final IssueDAO dao;
+
+    IssueQuery(IssueDAO dao) {
+        super(dao);
+        this.dao = dao;
+    }
+
+    @Override
+    IssueQuery self() {
+        return this;
+    }
+
+    public IssueQuery member(String memberId) {
+        return indexed("member = " + memberId, "member", () -> dao.memberIndex(memberId),
+                issue -> memberId.equals(issue.getMemberId()));
+    }
+
+    public IssueQuery book(String bookId) {
+        return indexed("book = " + bookId, "book", () -> dao.bookIndex(bookId),
+                issue -> bookId.equals(issue.getBookId()));
+    }
+
+    // Not yet returned
+    public IssueQuery active() {
+        return indexed("active", "active", dao::activeIndex, issue -> issue.getReturnDate() == null);
+    }
+
+    public IssueQuery returned() {
+        return where("returned", issue -> issue.getReturnDate() != null);
+    }
+
+    public IssueQuery issuedOnOrAfter(LocalDate date) {
+        return issuedBetween(date, null);
+    }
+
+    public IssueQuery issuedBefore(LocalDate date) {
+        return issuedBetween(null, date);
+    }
+
+    // From is inclusive and to exclusive; null leaves that end open
+    public IssueQuery issuedBetween(LocalDate from, LocalDate to) {
+        String description = from == null ? "issued < " + to
+                : to == null ? "issued >= " + from
+                : "issued in [" + from + ", " + to + ")";
+        return indexed(description, "date", () -> dao.dateIndex(from, to), issue -> {
+            LocalDate day = IssueDAO.dateKey(issue);
+            return (from == null || !day.isBefore(from)) && (to == null || day.isBefore(to));
+        });
+    }
+}
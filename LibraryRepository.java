@@ -0,0 +1,96 @@
+package dao;
+
+import model.Book;
+import model.Issue;
+import model.Member;
+import java.time.LocalDate;
+import java.util.List;
+
+public final class LibraryRepository {
+    private static LibraryRepository instance;
+
+    private final BookDAO bookDAO;
+    private final MemberDAO memberDAO;
+    private final IssueDAO issueDAO;
+    private final IdGenerator issueIds = new IdGenerator("I", IdGenerator.defaultNode());
+
+    private LibraryRepository() {
+        bookDAO = new BookDAO();
+        memberDAO = new MemberDAO();
+        issueDAO = new IssueDAO();
+        UnitOfWork.recover(List.of(bookDAO, memberDAO, issueDAO));
+    }
+
+    public static synchronized LibraryRepository getInstance() {
+        if (instance == null) {
+            instance = new LibraryRepository();
+        }
+        return instance;
+    }
+
+    // Unique across threads and across terminals sharing the data, each of which leases its own node number
+    public String nextIssueId() {
+        return issueIds.next();
+    }
+
+    // Records the issue and marks the book unavailable as one unit, checking both under the same locks
+    public void issueBook(Issue issue) {
+        UnitOfWork.run(List.of(issueDAO, bookDAO, memberDAO), work -> {
+            Book book = work.get(bookDAO, issue.getBookId());
+            if (book == null || !book.isAvailable()) {
+                throw new DataAccessException("Book " + issue.getBookId() + " is not available");
+            }
+            Member member = work.get(memberDAO, issue.getMemberId());
+            if (member == null) {
+                throw new DataAccessException("Member " + issue.getMemberId() + " no longer exists");
+            }
+            work.insert(issueDAO, issue);
+            book.setAvailable(false);
+            work.update(bookDAO, book);
+        });
+    }
+
+    // Closes the issue and makes its book available again as one unit; returns false if the issue is gone.
+    // An issue that was already returned, for example from another terminal, is left alone with its book.
+    public boolean returnBook(String issueId, LocalDate returnDate) {
+        boolean[] returned = {false};
+        UnitOfWork.run(List.of(issueDAO, bookDAO), work -> {
+            Issue issue = work.get(issueDAO, issueId);
+            if (issue == null) {
+                return;
+            }
+            if (issue.getReturnDate() != null) {
+                throw new DataAccessException("Issue " + issueId + " was already returned on " + issue.getReturnDate());
+            }
+            issue.setReturnDate(returnDate);
+            work.update(issueDAO, issue);
+            // The book may have been deleted since it was issued
+            Book book = work.get(bookDAO, issue.getBookId());
+            if (book != null) {
+                book.setAvailable(true);
+                work.update(bookDAO, book);
+            }
+            returned[0] = true;
+        });
+        return returned[0];
+    }
+
+    // Loads the three data files in parallel on background threads; queries wait on the DAO lock meanwhile
+    public void preload() {
+        startPreload("books", bookDAO);
+        startPreload("members", memberDAO);
+        startPreload("issues", issueDAO);
+    }
+
+    private static void startPreload(String name, BaseDAO<?> dao) {
+        Thread thread = new Thread(dao::preload, "preload-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public BookDAO getBookDAO() { return bookDAO; }
+
+    public MemberDAO getMemberDAO() { return memberDAO; }
+
+    public IssueDAO getIssueDAO() { return issueDAO; }
+}
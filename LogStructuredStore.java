@@ -0,0 +1,276 @@
+package dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+class LogStructuredStore<T> implements RecordStore<T>, SnapshotStore {
+    private static final char PUT = 'P';
+    private static final char DELETE = 'D';
+
+    private static final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "log-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final BaseDAO<T> dao;
+    private final File baseFile;
+    private final File logFile;
+    // Holds the log being folded into the base file while a compaction runs
+    private final File rotatedFile;
+    // Leased by the one process compacting, for as long as it runs
+    private final ProcessLock compactionLock;
+    private RecordWriter logWriter;
+    private final StorageSettings.Durability durability = StorageSettings.getDurability();
+    // Under group commit appends reach the OS at once but are forced to disk once per batch
+    private final GroupCommit group;
+    private boolean compacting;
+    private long baseModified = -1;
+    private long baseLength = -1;
+    private long logModified = -1;
+    private long logLength = -1;
+
+    LogStructuredStore(BaseDAO<T> dao) {
+        this.dao = dao;
+        this.baseFile = new File(dao.filename);
+        this.logFile = new File(dao.filename + ".log");
+        this.rotatedFile = new File(dao.filename + ".log.compacting");
+        this.compactionLock = ProcessLock.forFile(rotatedFile);
+        this.group = durability == StorageSettings.Durability.GROUP
+                ? new GroupCommit(dao, this::syncLog)
+                : null;
+    }
+
+    @Override
+    public void load(Map<String, T> records) {
+        // Another process may have rotated the log this writer still points at
+        closeLog();
+        try {
+            dao.readRecords(baseFile, item -> {
+                if (records.put(dao.getId(item), item) != null) {
+                    System.err.println("Duplicate ID " + dao.getId(item) + " in " + dao.filename + ", keeping the last row");
+                }
+            });
+            replay(rotatedFile, records);
+            replay(logFile, records);
+            if (!RecordReader.isCurrentFormat(logFile) || !RecordReader.isCurrentFormat(rotatedFile)) {
+                // Logs written before the versioned format are folded in now so appends never mix formats
+                closeLog();
+                replaceBase(records.values());
+                logFile.delete();
+                rotatedFile.delete();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        markLoaded();
+    }
+
+    private void replay(File file, Map<String, T> records) throws IOException {
+        RecordReader.forEach(file, fields -> {
+            try {
+                char tag = fields.nextFlag();
+                if (tag == PUT) {
+                    T item = dao.parseRecord(fields);
+                    records.put(dao.getId(item), item);
+                } else if (tag == DELETE) {
+                    records.remove(fields.nextString());
+                }
+            } catch (RuntimeException e) {
+                // A torn record at the tail is what a crash mid-append leaves behind
+                System.err.println("Skipping damaged log record in " + file + ": " + e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public boolean isStale() {
+        return baseFile.lastModified() != baseModified || baseFile.length() != baseLength
+                || logFile.lastModified() != logModified || logFile.length() != logLength
+                || dao.writtenElsewhere();
+    }
+
+    @Override
+    public void write(Map<String, T> records, Collection<T> puts, Collection<String> deletes) {
+        long logEnd = -1;
+        try {
+            if (logWriter == null) {
+                logWriter = RecordWriter.append(logFile);
+            }
+            // Every write ends flushed, so nothing of an earlier change is still buffered here
+            logEnd = logWriter.size();
+            for (T item : puts) {
+                logWriter.writeFlag(PUT);
+                dao.writeRecord(item, logWriter);
+                logWriter.endRecord();
+            }
+            for (String id : deletes) {
+                logWriter.writeFlag(DELETE);
+                logWriter.writeString(id);
+                logWriter.endRecord();
+            }
+            if (durability == StorageSettings.Durability.SYNC) {
+                logWriter.sync();
+            } else {
+                logWriter.flush();
+            }
+        } catch (IOException e) {
+            undoAppend(logEnd);
+            throw new DataAccessException("Could not save " + dao.filename, e);
+        }
+        dao.fileChanged();
+        if (group != null) {
+            try {
+                group.recorded(puts.size() + deletes.size());
+            } catch (DataAccessException e) {
+                // The records are in the log already; only forcing them failed, and the group retries that
+                e.printStackTrace();
+            }
+        }
+        if (!compacting && logFile.length() >= StorageSettings.getCompactionThreshold()) {
+            scheduleCompaction(records);
+        }
+        markLoaded();
+    }
+
+    // Cuts a partly written change off the end of the log, so replay never applies half of it
+    private void undoAppend(long logEnd) {
+        if (logWriter == null) {
+            return;
+        }
+        try {
+            if (logEnd >= 0) {
+                logWriter.truncate(logEnd);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            // Part of the change may be left in the log: read it back rather than trust the cache
+            logModified = -1;
+        }
+        closeLog();
+    }
+
+    private void syncLog() {
+        if (logWriter != null) {
+            try {
+                logWriter.sync();
+            } catch (IOException e) {
+                throw new DataAccessException("Could not force " + logFile + " to disk", e);
+            }
+        }
+    }
+
+    @Override
+    public void force() {
+        if (group != null) {
+            group.commitNow();
+        } else if (durability == StorageSettings.Durability.NONE) {
+            syncLog();
+        }
+    }
+
+    private void scheduleCompaction(Map<String, T> records) {
+        compacting = true;
+        if (group != null) {
+            group.flush();
+        }
+        closeLog();
+        // Another process is compacting and owns the rotated log until it is done
+        if (!compactionLock.lease(0)) {
+            compacting = false;
+            return;
+        }
+        // A rotated log nobody holds is left from an interrupted run, and this snapshot covers it too
+        if (!rotatedFile.exists() && !logFile.renameTo(rotatedFile)) {
+            compactionLock.endLease(0);
+            compacting = false;
+            return;
+        }
+        // Stored records are never mutated in place, so they can be formatted off-thread
+        List<T> snapshot = new ArrayList<>(records.values());
+        compactor.submit(() -> compact(snapshot));
+    }
+
+    private void compact(List<T> snapshot) {
+        File tempFile = null;
+        try {
+            // A temp file of its own, so nothing another process writes can land in the renamed base file
+            File directory = baseFile.getAbsoluteFile().getParentFile();
+            tempFile = File.createTempFile(baseFile.getName() + ".", ".tmp", directory);
+            dao.writeRecords(tempFile, snapshot, durability != StorageSettings.Durability.NONE);
+            dao.lockForWrite();
+            try {
+                // Only a legacy-format upgrade on load removes the rotated log while the lease is held
+                if (rotatedFile.exists()) {
+                    BaseDAO.moveIntoPlace(tempFile, baseFile, durability != StorageSettings.Durability.NONE);
+                    rotatedFile.delete();
+                }
+                markLoaded();
+            } finally {
+                dao.unlockForWrite();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+            dao.lockForWrite();
+            try {
+                compactionLock.endLease(0);
+                compacting = false;
+            } finally {
+                dao.unlockForWrite();
+            }
+        }
+    }
+
+    private void replaceBase(Collection<T> items) throws IOException {
+        dao.replaceRecords(baseFile, items, durability != StorageSettings.Durability.NONE);
+    }
+
+    private void closeLog() {
+        if (logWriter != null) {
+            try {
+                logWriter.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            logWriter = null;
+        }
+    }
+
+    @Override
+    public long[] signature() {
+        return new long[] {
+            baseFile.length(), baseFile.lastModified(),
+            logFile.length(), logFile.lastModified(),
+            rotatedFile.length(), rotatedFile.lastModified()
+        };
+    }
+
+    @Override
+    public boolean hasPendingChanges() {
+        // Appends reach the file at once; group commit only delays forcing them to disk
+        return false;
+    }
+
+    @Override
+    public void loadedFromSnapshot() {
+        closeLog();
+        markLoaded();
+    }
+
+    private void markLoaded() {
+        baseModified = baseFile.lastModified();
+        baseLength = baseFile.length();
+        logModified = logFile.lastModified();
+        logLength = logFile.length();
+    }
+}
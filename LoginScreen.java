@@ -1,122 +1,132 @@
-package ui;
-
-import javax.swing.*;
-import java.awt.*;
-
-public class LoginScreen extends JFrame {
-    private JTextField usernameField;
-    private JPasswordField passwordField;
-    
-    public LoginScreen() {
-        // Basic window setup
-        setTitle("Library Management System - Login");
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(400, 250);
-        setResizable(false);
-        
-        // Create main panel
-        JPanel mainPanel = new JPanel();
-        mainPanel.setLayout(new GridBagLayout());
-        mainPanel.setBackground(new Color(240, 240, 240));
-        
-        // Create form panel
-        JPanel formPanel = new JPanel();
-        formPanel.setLayout(new GridBagLayout());
-        formPanel.setBackground(new Color(240, 240, 240));
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.fill = GridBagConstraints.HORIZONTAL;
-        gbc.insets = new Insets(5, 5, 5, 5);
-        
-        // Title
-        JLabel titleLabel = new JLabel("Library Management System");
-        titleLabel.setFont(new Font("Arial", Font.BOLD, 20));
-        gbc.gridx = 0;
-        gbc.gridy = 0;
-        gbc.gridwidth = 2;
-        gbc.insets = new Insets(0, 0, 20, 0);
-        formPanel.add(titleLabel, gbc);
-        
-        // Username
-        JLabel usernameLabel = new JLabel("Username:");
-        gbc.gridx = 0;
-        gbc.gridy = 1;
-        gbc.gridwidth = 1;
-        gbc.insets = new Insets(5, 5, 5, 5);
-        formPanel.add(usernameLabel, gbc);
-        
-        usernameField = new JTextField(20);
-        gbc.gridx = 1;
-        gbc.gridy = 1;
-        formPanel.add(usernameField, gbc);
-        
-        // Password
-        JLabel passwordLabel = new JLabel("Password:");
-        gbc.gridx = 0;
-        gbc.gridy = 2;
-        formPanel.add(passwordLabel, gbc);
-        
-        passwordField = new JPasswordField(20);
-        gbc.gridx = 1;
-        gbc.gridy = 2;
-        formPanel.add(passwordField, gbc);
-        
-        // Login button
-        JButton loginButton = new JButton("Login");
-        loginButton.setBackground(new Color(51, 122, 183));
-        loginButton.setForeground(Color.WHITE);
-        loginButton.setFocusPainted(false);
-        loginButton.addActionListener(e -> handleLogin());
-        
-        gbc.gridx = 0;
-        gbc.gridy = 3;
-        gbc.gridwidth = 2;
-        gbc.insets = new Insets(20, 5, 5, 5);
-        formPanel.add(loginButton, gbc);
-        
-        mainPanel.add(formPanel);
-        add(mainPanel);
-        
-        // Center window
-        setLocationRelativeTo(null);
-        
-        // Set default button
-        getRootPane().setDefaultButton(loginButton);
-        
-        // Make window visible
-        setVisible(true);
-        
-        // Focus username field
-        usernameField.requestFocusInWindow();
-    }
-    
-    private void handleLogin() {
-        String username = usernameField.getText();
-        String password = new String(passwordField.getPassword());
-        
-        if (username.equals("admin") && password.equals("admin123")) {
-            dispose();
-            SwingUtilities.invokeLater(() -> {
-                Dashboard dashboard = new Dashboard();
-                dashboard.setVisible(true);
-            });
-        } else {
-            JOptionPane.showMessageDialog(this,
-                "Invalid username or password!",
-                "Login Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
-    }
-    
-    public static void main(String[] args) {
-        try {
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        
-        SwingUtilities.invokeLater(() -> {
-            LoginScreen loginScreen = new LoginScreen();
-            loginScreen.setVisible(true);
-        });
-    }
-}
+package ui;
+
+import dao.LibraryRepository;
+import javax.swing.*;
+import java.awt.*;
+
+public class LoginScreen extends JFrame {
+    private JTextField usernameField;
+    private JPasswordField passwordField;
+    private JButton loginButton;
+    
+    public LoginScreen() {
+        // Basic window setup
+        setTitle("Library Management System - Login");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setSize(400, 250);
+        setResizable(false);
+        
+        // Create main panel
+        JPanel mainPanel = new JPanel();
+        mainPanel.setLayout(new GridBagLayout());
+        mainPanel.setBackground(new Color(240, 240, 240));
+        
+        // Create form panel
+        JPanel formPanel = new JPanel();
+        formPanel.setLayout(new GridBagLayout());
+        formPanel.setBackground(new Color(240, 240, 240));
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(5, 5, 5, 5);
+        
+        // Title
+        JLabel titleLabel = new JLabel("Library Management System");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 20));
+        gbc.gridx = 0;
+        gbc.gridy = 0;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(0, 0, 20, 0);
+        formPanel.add(titleLabel, gbc);
+        
+        // Username
+        JLabel usernameLabel = new JLabel("Username:");
+        gbc.gridx = 0;
+        gbc.gridy = 1;
+        gbc.gridwidth = 1;
+        gbc.insets = new Insets(5, 5, 5, 5);
+        formPanel.add(usernameLabel, gbc);
+        
+        usernameField = new JTextField(20);
+        gbc.gridx = 1;
+        gbc.gridy = 1;
+        formPanel.add(usernameField, gbc);
+        
+        // Password
+        JLabel passwordLabel = new JLabel("Password:");
+        gbc.gridx = 0;
+        gbc.gridy = 2;
+        formPanel.add(passwordLabel, gbc);
+        
+        passwordField = new JPasswordField(20);
+        gbc.gridx = 1;
+        gbc.gridy = 2;
+        formPanel.add(passwordField, gbc);
+        
+        // Login button
+        loginButton = new JButton("Login");
+        loginButton.setBackground(new Color(51, 122, 183));
+        loginButton.setForeground(Color.WHITE);
+        loginButton.setFocusPainted(false);
+        loginButton.addActionListener(e -> handleLogin());
+        
+        gbc.gridx = 0;
+        gbc.gridy = 3;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(20, 5, 5, 5);
+        formPanel.add(loginButton, gbc);
+        
+        mainPanel.add(formPanel);
+        add(mainPanel);
+        
+        // Center window
+        setLocationRelativeTo(null);
+        
+        // Set default button
+        getRootPane().setDefaultButton(loginButton);
+        
+        // Make window visible
+        setVisible(true);
+        
+        // Focus username field
+        usernameField.requestFocusInWindow();
+    }
+    
+    private void handleLogin() {
+        String username = usernameField.getText();
+        String password = new String(passwordField.getPassword());
+        
+        if (username.equals("admin") && password.equals("admin123")) {
+            // Opening the repository may finish an interrupted transaction and wait for other terminals'
+            // locks, so it runs off the event thread; a failure is shown here and the login can be retried
+            loginButton.setEnabled(false);
+            AsyncLoader.submit(this, () -> {
+                LibraryRepository repository = LibraryRepository.getInstance();
+                // Start reading the data files while the dashboard is being built
+                repository.preload();
+                return repository;
+            }, repository -> {
+                dispose();
+                Dashboard dashboard = new Dashboard();
+                dashboard.setVisible(true);
+            }, () -> loginButton.setEnabled(true));
+        } else {
+            JOptionPane.showMessageDialog(this,
+                "Invalid username or password!",
+                "Login Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    public static void main(String[] args) {
+        try {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        
+        SwingUtilities.invokeLater(() -> {
+            LoginScreen loginScreen = new LoginScreen();
+            loginScreen.setVisible(true);
+        });
+    }
+}
@@ -1,30 +1,42 @@
-package model;
-
-import java.io.Serializable;
-
-public class Member implements Serializable {
-    private String memberId;
-    private String name;
-    private String email;
-
-    public Member(String memberId, String name, String email) {
-        this.memberId = memberId;
-        this.name = name;
-        this.email = email;
-    }
-
-    // Getters and Setters
-    public String getMemberId() { return memberId; }
-    public void setMemberId(String memberId) { this.memberId = memberId; }
-    
-    public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
-    
-    public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
-
-    @Override
-    public String toString() {
-        return memberId + "," + name + "," + email;
-    }
+package model;
+
+import java.io.Serializable;
+
+public class Member implements Serializable {
+    private String memberId;
+    private String name;
+    private String email;
+    // Bumped on every saved update; an update must carry the version it was read at
+    private long version;
+
+    public Member(String memberId, String name, String email) {
+        this.memberId = memberId;
+        this.name = name;
+        this.email = email;
+    }
+
+    public Member(Member other) {
+        this.memberId = other.memberId;
+        this.name = other.name;
+        this.email = other.email;
+        this.version = other.version;
+    }
+
+    // Getters and Setters
+    public String getMemberId() { return memberId; }
+    public void setMemberId(String memberId) { this.memberId = memberId; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    @Override
+    public String toString() {
+        return memberId + "," + name + "," + email;
+    }
 } 
\ No newline at end of file
@@ -1,74 +1,177 @@
-package dao;
-
-import model.Member;
-import java.util.List;
-import java.util.stream.Collectors;
-
-public class MemberDAO extends BaseDAO<Member> {
-    
-    public MemberDAO() {
-        super("members.txt");
-    }
-    
-    public List<Member> getAllMembers() {
-        return readAllLines().stream()
-                .map(this::parseLine)
-                .collect(Collectors.toList());
-    }
-    
-    public Member getMemberById(String memberId) {
-        return readAllLines().stream()
-                .map(this::parseLine)
-                .filter(member -> member.getMemberId().equals(memberId))
-                .findFirst()
-                .orElse(null);
-    }
-    
-    public List<Member> searchMembers(String query) {
-        String lowerQuery = query.toLowerCase();
-        return readAllLines().stream()
-                .map(this::parseLine)
-                .filter(member -> 
-                    member.getName().toLowerCase().contains(lowerQuery) ||
-                    member.getEmail().toLowerCase().contains(lowerQuery))
-                .collect(Collectors.toList());
-    }
-    
-    public void addMember(Member member) {
-        List<String> lines = readAllLines();
-        lines.add(formatLine(member));
-        writeAllLines(lines);
-    }
-    
-    public void updateMember(Member updatedMember) {
-        List<String> lines = readAllLines();
-        List<String> updatedLines = lines.stream()
-                .map(line -> {
-                    Member member = parseLine(line);
-                    return member.getMemberId().equals(updatedMember.getMemberId()) 
-                            ? formatLine(updatedMember) 
-                            : line;
-                })
-                .collect(Collectors.toList());
-        writeAllLines(updatedLines);
-    }
-    
-    public void deleteMember(String memberId) {
-        List<String> lines = readAllLines();
-        List<String> updatedLines = lines.stream()
-                .filter(line -> !parseLine(line).getMemberId().equals(memberId))
-                .collect(Collectors.toList());
-        writeAllLines(updatedLines);
-    }
-    
-    @Override
-    protected Member parseLine(String line) {
-        String[] parts = line.split(",");
-        return new Member(parts[0], parts[1], parts[2]);
-    }
-    
-    @Override
-    protected String formatLine(Member member) {
-        return member.toString();
-    }
-} 
\ No newline at end of file
+package dao;
+
+import model.Member;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+public class MemberDAO extends BaseDAO<Member> {
+    private final TextIndex textIndex = new TextIndex();
+    
+    public MemberDAO() {
+        super("members.txt");
+    }
+    
+    public List<Member> getAllMembers() {
+        return findAll();
+    }
+    
+    // Lazy alternatives to getAllMembers(): records are copied only as the stream reaches them
+    public Stream<Member> streamMembers() {
+        return stream(member -> true);
+    }
+    
+    // The filter runs on the stored members before copying and must not change them
+    public Stream<Member> streamMembers(Predicate<? super Member> filter) {
+        return stream(filter);
+    }
+    
+    public long countMembers(Predicate<? super Member> filter) {
+        return count(filter);
+    }
+    
+    // Conditions over the members, answered from the word index when it narrows them
+    public MemberQuery query() {
+        return new MemberQuery(this, textIndex);
+    }
+    
+    // Keyset page of members in ID order after the given ID, or the first page when it is null
+    public Page<Member> getMembersAfter(String afterMemberId, int limit) {
+        return findPageAfter(afterMemberId, limit);
+    }
+    
+    // Offset page in the same order; prefer getMembersAfter for paging through the whole list
+    public Page<Member> getMembersPage(int offset, int limit) {
+        return findPage(offset, limit);
+    }
+    
+    public Member getMemberById(String memberId) {
+        return findById(memberId);
+    }
+    
+    public List<String> getAllMemberIds() {
+        return findAllIds();
+    }
+    
+    public List<Member> getMembersByIds(List<String> memberIds) {
+        return findByIds(memberIds);
+    }
+    
+    public Map<String, String> getNamesById(Collection<String> memberIds) {
+        return lookupField(memberIds, Member::getName);
+    }
+    
+    // Keyset page of the members where every word of the query starts a word of the name or email,
+    // in ID order after the given member (null for the first page)
+    public Page<Member> searchMembers(String query, String afterMemberId, int limit) {
+        List<String> terms = TextIndex.tokenize(query);
+        if (terms.isEmpty()) {
+            return new Page<>(new ArrayList<>(), false, 0);
+        }
+        return findPageAfter(() -> textIndex.search(terms), afterMemberId, limit);
+    }
+    
+    // Typo-tolerant search over names and emails
+    public Page<Member> searchMembersFuzzy(String query, String afterMemberId, int limit) {
+        List<String> terms = TextIndex.tokenize(query);
+        if (terms.isEmpty()) {
+            return new Page<>(new ArrayList<>(), false, 0);
+        }
+        return findPageAfter(() -> textIndex.fuzzySearch(terms).keySet(), afterMemberId, limit);
+    }
+    
+    public void addMember(Member member) {
+        insert(member);
+    }
+    
+    public void updateMember(Member updatedMember) {
+        replace(updatedMember);
+    }
+    
+    public void deleteMember(String memberId) {
+        remove(memberId);
+    }
+    
+    // Batch versions of the above: one pass, one write, and a per-member report of rejected records
+    public BatchResult addMembers(Collection<Member> members) {
+        return insertAll(members);
+    }
+    
+    public BatchResult updateMembers(Collection<Member> members) {
+        return replaceAll(members);
+    }
+    
+    public BatchResult deleteMembers(Collection<String> memberIds) {
+        return removeAll(memberIds);
+    }
+    
+    @Override
+    protected void validate(Member member) {
+        super.validate(member);
+        if (member.getName() == null || member.getName().isBlank()) {
+            throw new InvalidRecordException("Member " + member.getMemberId() + " has no name");
+        }
+    }
+    
+    @Override
+    protected boolean isVersioned() {
+        return true;
+    }
+    
+    @Override
+    protected long getVersion(Member member) {
+        return member.getVersion();
+    }
+    
+    @Override
+    protected void setVersion(Member member, long version) {
+        member.setVersion(version);
+    }
+    
+    @Override
+    protected void clearIndexes() {
+        textIndex.clear();
+    }
+    
+    @Override
+    protected void indexRecord(Member member) {
+        textIndex.add(member.getMemberId(), member.getName(), member.getEmail());
+    }
+    
+    @Override
+    protected void unindexRecord(Member member) {
+        textIndex.remove(member.getMemberId(), member.getName(), member.getEmail());
+    }
+    
+    @Override
+    protected Member parseRecord(RecordFields fields) {
+        Member member = new Member(fields.nextString(), fields.nextString(), fields.nextString());
+        // Rows saved before versioning have no version field
+        if (fields.hasNext()) {
+            member.setVersion(fields.nextLong());
+        }
+        return member;
+    }
+    
+    @Override
+    protected void writeRecord(Member member, RecordWriter out) throws IOException {
+        out.writeString(member.getMemberId());
+        out.writeString(member.getName());
+        out.writeString(member.getEmail());
+        out.writeLong(member.getVersion());
+    }
+    
+    @Override
+    protected String getId(Member member) {
+        return member.getMemberId();
+    }
+    
+    @Override
+    protected Member copy(Member member) {
+        return new Member(member);
+    }
+}
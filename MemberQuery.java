@@ -0,0 +1,45 @@
+package dao;
+
+import model.Member;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Query over members; get one from MemberDAO.query(). Word conditions use the same prefix rule as searchMembers.
+public class MemberQuery extends Query<Member, MemberQuery> {
+    private final TextIndex textIndex;
+
+    MemberQuery(MemberDAO dao, TextIndex textIndex) {
+        super(dao);
+        this.textIndex = textIndex;
+    }
+
+    @Override
+    MemberQuery self() {
+        return this;
+    }
+
+    // Every word must start a word of the name or email
+    public MemberQuery text(String words) {
+        List<String> terms = TextIndex.tokenize(words);
+        return words(terms, "text ~ " + words,
+                member -> TextIndex.matchesAll(terms, member.getName(), member.getEmail()));
+    }
+
+    public MemberQuery name(String words) {
+        List<String> terms = TextIndex.tokenize(words);
+        return words(terms, "name ~ " + words, member -> TextIndex.matchesAll(terms, member.getName()));
+    }
+
+    public MemberQuery email(String words) {
+        List<String> terms = TextIndex.tokenize(words);
+        return words(terms, "email ~ " + words, member -> TextIndex.matchesAll(terms, member.getEmail()));
+    }
+
+    // The text index covers both fields, so for name and email it only narrows the candidates
+    private MemberQuery words(List<String> terms, String description, Predicate<Member> filter) {
+        if (terms.isEmpty()) {
+            return self();
+        }
+        return indexed(description, "text", () -> textIndex.search(terms), filter);
+    }
+}
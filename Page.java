@@ -0,0 +1,31 @@
+package dao;
+
+import java.util.Collections;
+import java.util.List;
+
+// One page of a paged listing: its records, whether more follow, and how many the whole listing has
+public class Page<T> {
+    private final List<T> items;
+    private final boolean hasMore;
+    private final int totalCount;
+
+    // Takes up to limit + 1 fetched records; the extra one only shows that another page exists
+    Page(List<T> fetched, int limit, int totalCount) {
+        this(fetched.size() > limit ? fetched.subList(0, limit) : fetched, fetched.size() > limit, totalCount);
+    }
+
+    Page(List<T> items, boolean hasMore, int totalCount) {
+        this.items = items;
+        this.hasMore = hasMore;
+        this.totalCount = totalCount;
+    }
+
+    public List<T> getItems() { return Collections.unmodifiableList(items); }
+
+    public boolean hasMore() { return hasMore; }
+
+    public int getTotalCount() { return totalCount; }
+
+    // The record the next page starts after, or null for an empty page
+    public T getLast() { return items.isEmpty() ? null : items.get(items.size() - 1); }
+}
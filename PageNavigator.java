@@ -0,0 +1,84 @@
+package ui;
+
+import dao.Page;
+import utils.UIUtils;
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Previous/next controls for a keyset-paged table. It remembers the key each visited page started
+// after, so going back repeats that page's query instead of counting rows from the start.
+public class PageNavigator<K> extends JPanel {
+    private final Consumer<K> loadPage;
+    private final int pageSize;
+    // Start key of every page up to the one on screen; the first page starts after null
+    private final List<K> starts = new ArrayList<>();
+    private K next;
+    private final JButton previousButton = new JButton("< Previous");
+    private final JButton nextButton = new JButton("Next >");
+    private final JLabel pageLabel = new JLabel();
+
+    // loadPage fetches the page after the given key and hands it back through pageLoaded
+    public PageNavigator(int pageSize, Consumer<K> loadPage) {
+        super(new FlowLayout(FlowLayout.CENTER));
+        this.pageSize = pageSize;
+        this.loadPage = loadPage;
+        setBackground(UIUtils.BACKGROUND_COLOR);
+        setBorder(BorderFactory.createEmptyBorder(0, 20, 10, 20));
+        UIUtils.setButtonStyle(previousButton);
+        UIUtils.setButtonStyle(nextButton);
+        UIUtils.setLabelStyle(pageLabel);
+        previousButton.addActionListener(e -> previous());
+        nextButton.addActionListener(e -> {
+            starts.add(next);
+            load();
+        });
+        add(previousButton);
+        add(pageLabel);
+        add(nextButton);
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void firstPage() {
+        starts.clear();
+        load();
+    }
+
+    // Loads the page on screen again, for example after one of its records changed
+    public void reload() {
+        load();
+    }
+
+    private void previous() {
+        starts.remove(starts.size() - 1);
+        load();
+    }
+
+    private void load() {
+        if (starts.isEmpty()) {
+            starts.add(null);
+        }
+        previousButton.setEnabled(false);
+        nextButton.setEnabled(false);
+        loadPage.accept(starts.get(starts.size() - 1));
+    }
+
+    // Called with the page once it is on screen and the key the next page starts after
+    public void pageLoaded(Page<?> page, K nextStart) {
+        if (page.getItems().isEmpty() && starts.size() > 1) {
+            // The last records of this page were deleted: show the one before instead
+            previous();
+            return;
+        }
+        next = page.hasMore() ? nextStart : null;
+        int pages = Math.max(1, (page.getTotalCount() + pageSize - 1) / pageSize);
+        pageLabel.setText("Page " + Math.min(starts.size(), pages) + " of " + pages);
+        previousButton.setEnabled(starts.size() > 1);
+        nextButton.setEnabled(page.hasMore());
+    }
+}
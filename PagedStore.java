@@ -0,0 +1,434 @@
+package dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Keeps each record in a fixed-size slot of a .pages file, found through the ID-to-slot index.
+// A changed record is written whole into a free slot under a higher sequence number, and its old
+// slot is only freed once the new one is on disk, so a torn write never costs the committed copy:
+// on load the newest intact copy of each ID wins. A delete only clears the slot's state byte, and
+// freed slots are reused by later writes before the file grows.
+// Slot 0 holds the file header. Every slot is a state byte, the payload length, a CRC32 of the
+// sequence number and payload, the sequence number, then the record in the binary snapshot
+// encoding, zero-padded to the slot size.
+// There is no snapshot: the slot of each record is only known by reading the paged file itself.
+class PagedStore<T> implements RecordStore<T> {
+    private static final long MAGIC = 0x4C49425041474532L; // "LIBPAGE2"
+    // Files written before slots carried a sequence number; they are rebuilt in the current layout on load
+    private static final long LEGACY_MAGIC = 0x4C49425041474531L; // "LIBPAGE1"
+    private static final byte FREE = 0;
+    private static final byte USED = 1;
+    private static final int SLOT_HEADER = 1 + Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int LEGACY_SLOT_HEADER = 1 + Integer.BYTES + Integer.BYTES;
+    // Slot sizes are powers of two, so slots never straddle a 4 KB page
+    private static final int MIN_SLOT_SIZE = 64;
+    private static final int READ_CHUNK = 1024 * 1024;
+
+    private final BaseDAO<T> dao;
+    // Source of the records the first time the paged file is created
+    private final File textFile;
+    private final File file;
+    private final StorageSettings.Durability durability = StorageSettings.getDurability();
+    // Under group commit slots reach the OS at once but are forced to disk once per batch
+    private final GroupCommit group;
+    private final RecordWriter encoder = RecordWriter.inMemory();
+    private FileChannel channel;
+    private int slotSize;
+    private int slotCount;
+    // Highest sequence number in the file; every slot write takes the next one
+    private long sequence;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final BitSet freeSlots = new BitSet();
+    // Old copies of changed records, freed once the group commit has forced their replacements to disk
+    private final List<Integer> supersededSlots = new ArrayList<>();
+    private ByteBuffer slotBuffer;
+    private long loadedModified = -1;
+    private long loadedLength = -1;
+
+    PagedStore(BaseDAO<T> dao) {
+        this.dao = dao;
+        this.textFile = new File(dao.filename);
+        this.file = new File(dao.filename + ".pages");
+        this.group = durability == StorageSettings.Durability.GROUP
+                ? new GroupCommit(dao, this::commitSlots)
+                : null;
+    }
+
+    @Override
+    public void load(Map<String, T> records) {
+        // Another process may have rebuilt the file this channel still points at
+        closeChannel();
+        supersededSlots.clear();
+        try {
+            if (!file.exists() || file.length() == 0) {
+                dao.readRecords(textFile, item -> records.put(dao.getId(item), item));
+                rebuild(records);
+            } else {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                if (!readSlots(records)) {
+                    rebuild(records);
+                }
+            }
+        } catch (IOException e) {
+            // Coming up empty would let the next write land in a file that could not be read
+            closeChannel();
+            throw new DataAccessException("Could not load " + file, e);
+        }
+        markLoaded();
+    }
+
+    // Returns false for a file in the legacy layout, which the caller then rebuilds
+    private boolean readSlots(Map<String, T> records) throws IOException {
+        slots.clear();
+        freeSlots.clear();
+        sequence = 0;
+        ByteBuffer header = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+        readFully(header, 0);
+        long magic = header.getLong(0);
+        slotSize = header.getInt(Long.BYTES);
+        if ((magic != MAGIC && magic != LEGACY_MAGIC) || slotSize < MIN_SLOT_SIZE || Integer.bitCount(slotSize) != 1) {
+            throw new IOException(file + " is not a paged record file");
+        }
+        boolean legacy = magic == LEGACY_MAGIC;
+        int slotHeader = legacy ? LEGACY_SLOT_HEADER : SLOT_HEADER;
+        slotCount = (int) (channel.size() / slotSize);
+        slotBuffer = ByteBuffer.allocate(slotSize);
+        Map<String, Long> sequences = new HashMap<>();
+        RecordFields fields = new RecordFields();
+        CRC32 crc = new CRC32();
+        ByteBuffer chunk = ByteBuffer.allocate(Math.max(slotSize, READ_CHUNK / slotSize * slotSize));
+        int slotsPerChunk = chunk.capacity() / slotSize;
+        for (int first = 1; first < slotCount; first += slotsPerChunk) {
+            int count = Math.min(slotsPerChunk, slotCount - first);
+            chunk.clear().limit(count * slotSize);
+            readFully(chunk, (long) first * slotSize);
+            for (int i = 0; i < count; i++) {
+                int slot = first + i;
+                int offset = i * slotSize;
+                if (chunk.get(offset) != USED) {
+                    freeSlots.set(slot);
+                    continue;
+                }
+                int length = chunk.getInt(offset + 1);
+                if (length <= 0 || length > slotSize - slotHeader) {
+                    damaged(slot);
+                    continue;
+                }
+                // The CRC covers the sequence number too; legacy slots have none
+                int checked = offset + LEGACY_SLOT_HEADER;
+                crc.reset();
+                crc.update(chunk.slice(checked, slotHeader - LEGACY_SLOT_HEADER + length));
+                if ((int) crc.getValue() != chunk.getInt(offset + 1 + Integer.BYTES)) {
+                    damaged(slot);
+                    continue;
+                }
+                long slotSequence = legacy ? 0 : chunk.getLong(checked);
+                sequence = Math.max(sequence, slotSequence);
+                fields.resetBinary(chunk.slice(offset + slotHeader, length), 0);
+                T item = dao.parseRecord(fields);
+                String id = dao.getId(item);
+                Long previousSequence = sequences.get(id);
+                if (previousSequence != null && previousSequence > slotSequence) {
+                    // An older copy whose replacement is already on disk
+                    freeSlot(slot);
+                    continue;
+                }
+                Integer previous = slots.put(id, slot);
+                sequences.put(id, slotSequence);
+                records.put(id, item);
+                if (previous != null) {
+                    if (legacy || previousSequence == slotSequence) {
+                        System.err.println("Duplicate ID " + id + " in " + file + ", keeping the last slot");
+                    }
+                    freeSlot(previous);
+                }
+            }
+        }
+        return !legacy;
+    }
+
+    // A slot that was torn or corrupted before its write completed is reported and reused. Committed
+    // records are never written over, so its ID still has an older intact copy unless it was new.
+    private void damaged(int slot) {
+        System.err.println("Skipping damaged slot " + slot + " in " + file);
+        freeSlots.set(slot);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of " + file);
+            }
+        }
+    }
+
+    @Override
+    public boolean isStale() {
+        return file.lastModified() != loadedModified || file.length() != loadedLength || dao.writtenElsewhere();
+    }
+
+    @Override
+    public void write(Map<String, T> records, Collection<T> puts, Collection<String> deletes) {
+        // What this write changed, so a failure can put the slots back as they were
+        List<Integer> written = new ArrayList<>();
+        List<Integer> superseded = new ArrayList<>();
+        Map<String, Integer> deleted = new LinkedHashMap<>();
+        Map<String, Integer> before = new HashMap<>();
+        try {
+            // A delete is one state byte, which cannot tear, and must reach disk with the rest of the change
+            for (String id : deletes) {
+                Integer slot = slots.remove(id);
+                if (slot != null) {
+                    deleted.put(id, slot);
+                    writeState(slot, FREE);
+                }
+            }
+            boolean rebuilt = false;
+            for (T item : puts) {
+                String id = dao.getId(item);
+                Integer old = slots.get(id);
+                if (!before.containsKey(id)) {
+                    before.put(id, old);
+                }
+                Integer slot = writeSlot(item);
+                if (slot == null) {
+                    // Too long for the current slots: every record moves to a file with larger ones
+                    rebuild(records);
+                    rebuilt = true;
+                    break;
+                }
+                written.add(slot);
+                if (old != null) {
+                    superseded.add(old);
+                }
+            }
+            if (!rebuilt) {
+                if (durability == StorageSettings.Durability.SYNC) {
+                    channel.force(false);
+                }
+                for (int slot : deleted.values()) {
+                    freeSlots.set(slot);
+                }
+                // The old copies may only go once the new ones are as durable as this store promises
+                if (group != null) {
+                    supersededSlots.addAll(superseded);
+                } else {
+                    freeSuperseded(superseded);
+                }
+            }
+            dao.fileChanged();
+        } catch (IOException e) {
+            undo(written, deleted, before);
+            throw new DataAccessException("Could not save " + dao.filename, e);
+        }
+        markLoaded();
+        if (group != null) {
+            try {
+                group.recorded(puts.size() + deletes.size());
+            } catch (DataAccessException e) {
+                // The slots are written already; only forcing them failed, and the group retries that
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Frees the slots written by a failed change and restores the ones it deleted, so the file keeps
+    // its previous records; whatever cannot be undone is read back by the next access
+    private void undo(List<Integer> written, Map<String, Integer> deleted, Map<String, Integer> before) {
+        before.forEach((id, slot) -> {
+            if (slot != null) {
+                slots.put(id, slot);
+            } else {
+                slots.remove(id);
+            }
+        });
+        slots.putAll(deleted);
+        if (channel != null) {
+            try {
+                for (int slot : written) {
+                    writeState(slot, FREE);
+                    freeSlots.set(slot);
+                }
+                for (int slot : deleted.values()) {
+                    writeState(slot, USED);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        loadedModified = -1;
+    }
+
+    // Writes the record into the lowest free slot, never over its current copy, and points its ID at the
+    // new slot; null when it does not fit
+    private Integer writeSlot(T item) throws IOException {
+        ByteBuffer payload = encode(item);
+        if (payload.remaining() > slotSize - SLOT_HEADER) {
+            return null;
+        }
+        int slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.nextSetBit(0);
+        freeSlots.clear(slot);
+        fillSlot(payload);
+        writeFully(slotBuffer, (long) slot * slotSize);
+        slots.put(dao.getId(item), slot);
+        return slot;
+    }
+
+    private void freeSuperseded(List<Integer> superseded) {
+        try {
+            for (int slot : superseded) {
+                freeSlot(slot);
+            }
+        } catch (IOException e) {
+            // The new copies have higher sequence numbers, so the next load frees these anyway
+            e.printStackTrace();
+        }
+    }
+
+    private void freeSlot(int slot) throws IOException {
+        writeState(slot, FREE);
+        freeSlots.set(slot);
+    }
+
+    private void writeState(int slot, byte state) throws IOException {
+        writeFully(ByteBuffer.wrap(new byte[] { state }), (long) slot * slotSize);
+    }
+
+    private ByteBuffer encode(T item) throws IOException {
+        encoder.reset();
+        dao.writeRecord(item, encoder);
+        encoder.endRecord();
+        return encoder.contents();
+    }
+
+    private void fillSlot(ByteBuffer payload) {
+        Arrays.fill(slotBuffer.array(), (byte) 0);
+        slotBuffer.clear();
+        slotBuffer.put(USED).putInt(payload.remaining()).putInt(0).putLong(++sequence).put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(slotBuffer.array(), LEGACY_SLOT_HEADER, Long.BYTES + payload.limit());
+        slotBuffer.putInt(1 + Integer.BYTES, (int) crc.getValue());
+        slotBuffer.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        writeFully(channel, buffer, position);
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += target.write(buffer, position);
+        }
+    }
+
+    // Writes every record into a new file with slots large enough for the longest, then swaps it in.
+    // The current file stays untouched until the new one is complete.
+    private void rebuild(Map<String, T> records) throws IOException {
+        int longest = 0;
+        for (T item : records.values()) {
+            longest = Math.max(longest, encode(item).remaining());
+        }
+        // Half as much room again as needed, so records can grow a little without another rebuild
+        int needed = (longest + SLOT_HEADER) * 3 / 2;
+        int newSlotSize = Math.max(MIN_SLOT_SIZE, Integer.highestOneBit(needed - 1) << 1);
+        ByteBuffer newSlotBuffer = ByteBuffer.allocate(newSlotSize);
+        Map<String, Integer> newSlots = new HashMap<>();
+        File tempFile = new File(file.getPath() + ".tmp");
+        ByteBuffer oldSlotBuffer = slotBuffer;
+        slotBuffer = newSlotBuffer;
+        try (FileChannel out = FileChannel.open(tempFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(newSlotSize);
+            header.putLong(MAGIC).putInt(newSlotSize).clear();
+            writeFully(out, header, 0);
+            int slot = 1;
+            for (T item : records.values()) {
+                fillSlot(encode(item));
+                writeFully(out, slotBuffer, (long) slot * newSlotSize);
+                newSlots.put(dao.getId(item), slot++);
+            }
+            if (durability != StorageSettings.Durability.NONE) {
+                out.force(false);
+            }
+            BaseDAO.moveIntoPlace(tempFile, file, durability != StorageSettings.Durability.NONE);
+        } catch (IOException e) {
+            slotBuffer = oldSlotBuffer;
+            tempFile.delete();
+            throw e;
+        }
+        closeChannel();
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        slotSize = newSlotSize;
+        slotCount = newSlots.size() + 1;
+        slots.clear();
+        slots.putAll(newSlots);
+        freeSlots.clear();
+        supersededSlots.clear();
+        dao.fileChanged();
+    }
+
+    @Override
+    public void force() {
+        if (group != null) {
+            group.commitNow();
+        } else if (durability == StorageSettings.Durability.NONE) {
+            commitSlots();
+        }
+    }
+
+    // Forces the written slots to disk, then frees the copies they replaced
+    private void commitSlots() {
+        try {
+            if (channel != null) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Could not force " + file + " to disk", e);
+        }
+        // A process that wrote since then reloaded the file first, which freed these copies, and may
+        // already have reused their slots for newer records
+        if (!dao.writtenElsewhere()) {
+            freeSuperseded(supersededSlots);
+        }
+        supersededSlots.clear();
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            channel = null;
+        }
+    }
+
+    private void markLoaded() {
+        loadedModified = file.lastModified();
+        loadedLength = file.length();
+    }
+
+    @Override
+    public long[] signature() {
+        return new long[] { file.length(), file.lastModified() };
+    }
+
+    @Override
+    public boolean hasPendingChanges() {
+        // Slots reach the file at once; group commit only delays forcing them to disk
+        return false;
+    }
+}
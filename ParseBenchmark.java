@@ -0,0 +1,133 @@
+package dao;
+
+import model.Issue;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+// Compares the original line-splitting parser with RecordReader on an issues file: time, bytes
+// allocated by the parsing thread, and garbage collections during each round. The file is
+// generated first when it does not exist. Run it with a fixed heap, e.g. -Xmx2g, so rounds compare.
+//
+// Usage: java dao.ParseBenchmark [issues file] [lines] [rounds]
+public class ParseBenchmark {
+    public static void main(String[] args) throws IOException {
+        File file = new File(args.length > 0 ? args[0] : "benchmark-issues.txt");
+        int lines = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        if (!file.exists()) {
+            generate(file, lines);
+        }
+        System.out.println("Parsing " + file + " (" + (file.length() >> 20) + " MB), " + rounds + " rounds each");
+        // The first rounds only warm up the JIT; the last one is reported
+        for (int round = 1; round <= rounds; round++) {
+            measure("split lines  ", round, rounds, () -> parseLines(file));
+            measure("record reader", round, rounds, () -> parseRecords(file));
+        }
+    }
+
+    private interface Parse {
+        int run() throws IOException;
+    }
+
+    private static void measure(String name, int round, int rounds, Parse parse) throws IOException {
+        System.gc();
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        int count = parse.run();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        allocated = allocatedBytes() - allocated;
+        if (round == rounds) {
+            System.out.printf("%s: %,d records in %,d ms, %,d MB allocated (%,d bytes per record), %d GCs taking %,d ms%n",
+                    name, count, millis, allocated >> 20, count > 0 ? allocated / count : 0,
+                    gcCount() - gcCount, gcMillis() - gcMillis);
+        }
+    }
+
+    // The parser the DAOs used before RecordReader: every line into a list, then split and LocalDate.parse
+    private static int parseLines(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty() && !line.startsWith("#")) {
+                    lines.add(line);
+                }
+            }
+        }
+        int count = 0;
+        for (String line : lines) {
+            String[] parts = line.split(",");
+            Issue issue = new Issue(parts[0], parts[1], parts[2], LocalDate.parse(parts[3]));
+            if (!parts[4].equals("null")) {
+                issue.setReturnDate(LocalDate.parse(parts[4]));
+            }
+            count += consume(issue);
+        }
+        return count;
+    }
+
+    // The same records through the in-place reader, as IssueDAO.parseRecord reads them
+    private static int parseRecords(File file) throws IOException {
+        int[] count = {0};
+        RecordReader.forEach(file, fields -> {
+            Issue issue = new Issue(fields.nextString(), fields.nextString(), fields.nextString(), fields.nextDate());
+            issue.setReturnDate(fields.nextDate());
+            count[0] += consume(issue);
+        });
+        return count[0];
+    }
+
+    // Keeps the parsed record observable so the JIT cannot drop the parsing
+    private static int consume(Issue issue) {
+        return issue.getIssueId().isEmpty() ? 0 : 1;
+    }
+
+    private static void generate(File file, int lines) throws IOException {
+        System.out.println("Writing " + lines + " issues to " + file);
+        Random random = new Random(42);
+        LocalDate first = LocalDate.of(2015, 1, 1);
+        try (RecordWriter out = RecordWriter.create(file)) {
+            for (int i = 0; i < lines; i++) {
+                LocalDate issued = first.plusDays(random.nextInt(4000));
+                out.writeString("I" + i);
+                out.writeString("B" + random.nextInt(50_000));
+                out.writeString("M" + random.nextInt(20_000));
+                out.writeDate(issued);
+                out.writeDate(random.nextInt(10) == 0 ? null : issued.plusDays(random.nextInt(30)));
+                out.endRecord();
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long gcCount() {
+        return sumOverCollectors(GarbageCollectorMXBean::getCollectionCount);
+    }
+
+    private static long gcMillis() {
+        return sumOverCollectors(GarbageCollectorMXBean::getCollectionTime);
+    }
+
+    private static long sumOverCollectors(ToLongFunction<GarbageCollectorMXBean> value) {
+        long sum = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sum += Math.max(0, value.applyAsLong(collector));
+        }
+        return sum;
+    }
+}
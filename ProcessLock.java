@@ -0,0 +1,163 @@
+package dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Exclusive lock on a data file shared by every thread and every process using it.
+// Threads queue on an in-process lock first; the holder then takes an OS lock on a companion
+// .lock file, so the data file itself can still be renamed over while it is held.
+// The .lock file also holds a write counter: file times and sizes alone miss two same-sized
+// writes within one timestamp tick.
+final class ProcessLock {
+    private static final Map<String, ProcessLock> locks = new HashMap<>();
+
+    // The OS lock covers a byte past the counter; Windows locks are mandatory and would block reading it
+    private static final long LOCK_POSITION = 64;
+    // How long to poll for the OS lock after the kernel refused to wait for it
+    private static final long POLL_TIMEOUT_MS = 60_000;
+    // Leases are single bytes from here on, clear of the counter and the lock byte
+    private static final long LEASE_POSITION = 128;
+
+    private final File lockFile;
+    private final ReentrantLock threadLock = new ReentrantLock();
+    private final FileChannel channel;
+    private FileLock fileLock;
+    private final List<FileLock> leases = new ArrayList<>();
+
+    private ProcessLock(File lockFile) {
+        this.lockFile = lockFile;
+        try {
+            channel = FileChannel.open(lockFile.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new DataAccessException("Could not open " + lockFile, e);
+        }
+    }
+
+    // One instance per data file, so two DAOs over the same file in one JVM never overlap their OS locks
+    static synchronized ProcessLock forFile(File dataFile) {
+        String lockPath = dataFile.getAbsolutePath() + ".lock";
+        return locks.computeIfAbsent(lockPath, path -> new ProcessLock(new File(path)));
+    }
+
+    // Reentrant; every acquire must be paired with a release
+    void acquire() {
+        threadLock.lock();
+        if (threadLock.getHoldCount() > 1) {
+            return;
+        }
+        try {
+            fileLock = lockFile();
+        } catch (IOException e) {
+            threadLock.unlock();
+            throw new DataAccessException("Could not lock " + lockFile, e);
+        }
+    }
+
+    // POSIX locks belong to the whole process, so the kernel can report a deadlock when a thread here
+    // waits for a file another process holds while a different thread of that process waits for one
+    // held here. Nothing is stuck in that case, so the lock is polled until the other side lets go.
+    private FileLock lockFile() throws IOException {
+        try {
+            return channel.lock(LOCK_POSITION, 1, false);
+        } catch (IOException e) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(POLL_TIMEOUT_MS);
+            while (System.nanoTime() < deadline) {
+                FileLock polled = channel.tryLock(LOCK_POSITION, 1, false);
+                if (polled != null) {
+                    return polled;
+                }
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            throw e;
+        }
+    }
+
+    // Number of writes to the data file so far, by any process
+    long generation() {
+        ByteBuffer counter = ByteBuffer.allocate(Long.BYTES);
+        try {
+            while (counter.hasRemaining() && channel.read(counter, counter.position()) > 0) {
+                // keep reading
+            }
+            return counter.hasRemaining() ? 0 : counter.getLong(0);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    // Counts one more write; only called by the holder
+    long advance() {
+        long next = generation() + 1;
+        ByteBuffer counter = ByteBuffer.allocate(Long.BYTES).putLong(0, next);
+        try {
+            while (counter.hasRemaining()) {
+                channel.write(counter, counter.position());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return next;
+    }
+
+    // Holds lease number n of the .lock file until endLease or exit, so no other process can take it.
+    // Returns false when another process, or this one, already holds it.
+    boolean lease(int n) {
+        try {
+            FileLock lease = channel.tryLock(LEASE_POSITION + n, 1, false);
+            if (lease == null) {
+                return false;
+            }
+            leases.add(lease);
+            return true;
+        } catch (OverlappingFileLockException e) {
+            return false;
+        } catch (IOException e) {
+            throw new DataAccessException("Could not lease " + n + " in " + lockFile, e);
+        }
+    }
+
+    void endLease(int n) {
+        for (FileLock lease : leases) {
+            if (lease.position() == LEASE_POSITION + n) {
+                leases.remove(lease);
+                try {
+                    lease.release();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                return;
+            }
+        }
+    }
+
+    void release() {
+        try {
+            if (threadLock.getHoldCount() == 1 && fileLock != null) {
+                fileLock.release();
+                fileLock = null;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            threadLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Conditions over one DAO's records, all of which must hold. Before running, the planner asks every
+// condition that an index can answer how many records that index leaves, walks the smallest, and
+// checks the other conditions record by record. When no index narrows the records enough it scans
+// the cache instead. Results come in the order of whatever was walked; explain() reports the plan.
+public abstract class Query<T, Q extends Query<T, Q>> {
+    // An index walk has to skip at least half of the records to beat a plain scan of the cache
+    private static final double MAX_INDEX_SHARE = 0.5;
+
+    private final BaseDAO<T> dao;
+    private final List<Condition<T>> conditions = new ArrayList<>();
+    private int limit = Integer.MAX_VALUE;
+
+    Query(BaseDAO<T> dao) {
+        this.dao = dao;
+    }
+
+    abstract Q self();
+
+    public Q id(String id) {
+        return indexed("ID = " + id, "primary key",
+                () -> dao.peek(id) != null ? List.of(id) : List.of(),
+                item -> dao.getId(item).equals(id));
+    }
+
+    // A condition no index can answer; it is checked against every record the plan visits and must not change it
+    public Q where(String description, Predicate<? super T> filter) {
+        conditions.add(new Condition<>(description, null, null, filter));
+        return self();
+    }
+
+    public Q limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Query limit must not be negative: " + limit);
+        }
+        this.limit = limit;
+        return self();
+    }
+
+    // The lookup returns a superset of the IDs that pass the filter; its size() should be cheap,
+    // since the planner calls it for every indexed condition
+    Q indexed(String description, String index, Supplier<Collection<String>> lookup, Predicate<? super T> filter) {
+        conditions.add(new Condition<>(description, index, lookup, filter));
+        return self();
+    }
+
+    public List<T> list() {
+        return dao.read(() -> {
+            List<T> result = new ArrayList<>();
+            // The limit is checked before taking a record, so limit(0) takes none
+            run(plan(), item -> {
+                if (result.size() >= limit) {
+                    return false;
+                }
+                result.add(dao.copy(item));
+                return result.size() < limit;
+            });
+            return result;
+        });
+    }
+
+    public int count() {
+        return dao.read(() -> {
+            int[] count = {0};
+            run(plan(), item -> {
+                if (count[0] >= limit) {
+                    return false;
+                }
+                return ++count[0] < limit;
+            });
+            return count[0];
+        });
+    }
+
+    // Describes the plan list() and count() would use right now, with the estimate behind it
+    public String explain() {
+        return dao.read(() -> plan().describe());
+    }
+
+    private Plan plan() {
+        Plan plan = new Plan(dao.recordCount());
+        for (Condition<T> condition : conditions) {
+            if (condition.index == null) {
+                continue;
+            }
+            Collection<String> candidates = condition.lookup.get();
+            plan.considered.add(condition);
+            plan.estimates.add(candidates.size());
+            if (plan.access == null || candidates.size() < plan.candidates.size()) {
+                plan.access = condition;
+                plan.candidates = candidates;
+            }
+        }
+        if (plan.access != null && plan.candidates.size() > plan.total * MAX_INDEX_SHARE
+                && plan.candidates.size() > 1) {
+            plan.scanInstead = true;
+        }
+        return plan;
+    }
+
+    // Feeds each matching record to the consumer until it returns false
+    private void run(Plan plan, Predicate<T> consumer) {
+        if (plan.walksIndex()) {
+            for (String id : plan.candidates) {
+                T item = dao.peek(id);
+                if (item != null && matches(item) && !consumer.test(item)) {
+                    return;
+                }
+            }
+            return;
+        }
+        for (T item : dao.cachedValues()) {
+            if (matches(item) && !consumer.test(item)) {
+                return;
+            }
+        }
+    }
+
+    private boolean matches(T item) {
+        for (Condition<T> condition : conditions) {
+            if (!condition.filter.test(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Condition<T> {
+        final String description;
+        // Name of the index that can answer this condition, or null
+        final String index;
+        final Supplier<Collection<String>> lookup;
+        final Predicate<? super T> filter;
+
+        Condition(String description, String index, Supplier<Collection<String>> lookup, Predicate<? super T> filter) {
+            this.description = description;
+            this.index = index;
+            this.lookup = lookup;
+            this.filter = filter;
+        }
+    }
+
+    private final class Plan {
+        final int total;
+        final List<Condition<T>> considered = new ArrayList<>();
+        final List<Integer> estimates = new ArrayList<>();
+        Condition<T> access;
+        Collection<String> candidates;
+        boolean scanInstead;
+
+        Plan(int total) {
+            this.total = total;
+        }
+
+        boolean walksIndex() {
+            return access != null && !scanInstead;
+        }
+
+        String describe() {
+            StringBuilder plan = new StringBuilder();
+            if (walksIndex()) {
+                plan.append("Index ").append(access.index).append(" for ").append(access.description)
+                        .append(": ").append(candidates.size()).append(" of ").append(total).append(" records");
+            } else {
+                plan.append("Full scan of ").append(total).append(" records");
+                if (scanInstead) {
+                    plan.append(" (the best index, ").append(access.index).append(", still leaves ")
+                            .append(candidates.size()).append(")");
+                }
+            }
+            List<String> filters = new ArrayList<>();
+            for (Condition<T> condition : conditions) {
+                if (condition != access || !walksIndex()) {
+                    filters.add(condition.description);
+                }
+            }
+            if (!filters.isEmpty()) {
+                plan.append("\n  then filter: ").append(String.join(", ", filters));
+            }
+            List<String> others = new ArrayList<>();
+            for (int i = 0; i < considered.size(); i++) {
+                if (considered.get(i) != access) {
+                    others.add(considered.get(i).index + " for " + considered.get(i).description
+                            + " (" + estimates.get(i) + ")");
+                }
+            }
+            if (!others.isEmpty()) {
+                plan.append("\n  also considered: ").append(String.join(", ", others));
+            }
+            if (limit != Integer.MAX_VALUE) {
+                plan.append("\n  stop after ").append(limit).append(" matches");
+            }
+            return plan.toString();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package dao;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+// Cursor over the comma-separated fields of one record, read in place from a buffer.
+// Binary snapshots use the same cursor: each field is a type tag and a fixed-size or
+// length-prefixed value, and a zero tag ends the record.
+public final class RecordFields {
+    private static final byte SEPARATOR = ',';
+    private static final byte QUOTE = '"';
+
+    static final byte TAG_END = 0;
+    static final byte TAG_STRING = 1;
+    static final byte TAG_BOOLEAN = 2;
+    static final byte TAG_DATE = 3;
+    static final byte TAG_LONG = 4;
+    static final byte TAG_FLAG = 5;
+    // Epoch day written for a null date
+    static final int NULL_DAY = Integer.MIN_VALUE;
+
+    private ByteBuffer buffer;
+    private int position;
+    private int end;
+    private byte[] scratch = new byte[128];
+    // Version 1 files have bare fields in the platform charset; version 2 files are quoted UTF-8
+    private boolean quoted;
+    private Charset charset = Charset.defaultCharset();
+    private boolean binary;
+
+    RecordFields() {}
+
+    void setFormat(boolean quoted) {
+        this.quoted = quoted;
+        this.charset = quoted ? StandardCharsets.UTF_8 : Charset.defaultCharset();
+    }
+
+    void reset(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.position = start;
+        this.end = end;
+    }
+
+    // Starts a binary record at start; the record runs up to its end tag
+    void resetBinary(ByteBuffer buffer, int start) {
+        this.buffer = buffer;
+        this.position = start;
+        this.end = buffer.limit();
+        this.binary = true;
+        this.charset = StandardCharsets.UTF_8;
+    }
+
+    // Skips any fields the parser left unread and returns where the next binary record starts
+    int skipRecord() {
+        while (true) {
+            byte tag = buffer.get(position++);
+            switch (tag) {
+                case TAG_END: return position;
+                case TAG_STRING: position += readLength(); break;
+                case TAG_BOOLEAN: case TAG_FLAG: position += 1; break;
+                case TAG_DATE: position += Integer.BYTES; break;
+                case TAG_LONG: position += Long.BYTES; break;
+                default: throw malformed("field tag");
+            }
+        }
+    }
+
+    public boolean hasNext() {
+        return binary ? buffer.get(position) != TAG_END : position <= end;
+    }
+
+    public String nextString() {
+        if (binary) {
+            expectTag(TAG_STRING);
+            int length = readLength();
+            ensureScratch(length);
+            buffer.get(position, scratch, 0, length);
+            position += length;
+            return decode(length);
+        }
+        if (quoted && position < end && buffer.get(position) == QUOTE) {
+            return nextQuotedString();
+        }
+        int fieldEnd = fieldEnd();
+        int length = fieldEnd - position;
+        ensureScratch(length);
+        buffer.get(position, scratch, 0, length);
+        position = fieldEnd + 1;
+        return decode(length);
+    }
+
+    // Copies the field between its quotes, collapsing each doubled quote to one
+    private String nextQuotedString() {
+        int i = position + 1;
+        int length = 0;
+        ensureScratch(end - i);
+        while (true) {
+            if (i >= end) {
+                throw malformed("closing quote");
+            }
+            byte b = buffer.get(i++);
+            if (b == QUOTE) {
+                if (i < end && buffer.get(i) == QUOTE) {
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            scratch[length++] = b;
+        }
+        if (i < end && buffer.get(i) != SEPARATOR) {
+            throw malformed("separator after quoted field");
+        }
+        position = i + 1;
+        return decode(length);
+    }
+
+    private String decode(int length) {
+        for (int i = 0; i < length; i++) {
+            if (scratch[i] < 0) {
+                return new String(scratch, 0, length, charset);
+            }
+        }
+        // Pure ASCII decodes with a single copy into a compact Latin-1 string
+        return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    public boolean nextBoolean() {
+        if (binary) {
+            expectTag(TAG_BOOLEAN);
+            return buffer.get(position++) != 0;
+        }
+        int fieldEnd = fieldEnd();
+        boolean value = fieldEnd - position == 4
+                && (buffer.get(position) | 0x20) == 't'
+                && (buffer.get(position + 1) | 0x20) == 'r'
+                && (buffer.get(position + 2) | 0x20) == 'u'
+                && (buffer.get(position + 3) | 0x20) == 'e';
+        position = fieldEnd + 1;
+        return value;
+    }
+
+    // Parses a non-negative decimal number such as a record version
+    public long nextLong() {
+        if (binary) {
+            expectTag(TAG_LONG);
+            long value = buffer.getLong(position);
+            position += Long.BYTES;
+            return value;
+        }
+        int fieldEnd = fieldEnd();
+        if (fieldEnd == position || fieldEnd - position > 18) {
+            throw malformed("number");
+        }
+        long value = 0;
+        for (int i = position; i < fieldEnd; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw malformed("number");
+            }
+            value = value * 10 + digit;
+        }
+        position = fieldEnd + 1;
+        return value;
+    }
+
+    // Parses yyyy-MM-dd; the literal "null" yields null
+    public LocalDate nextDate() {
+        if (binary) {
+            expectTag(TAG_DATE);
+            int epochDay = buffer.getInt(position);
+            position += Integer.BYTES;
+            return epochDay == NULL_DAY ? null : DateCache.ofEpochDay(epochDay);
+        }
+        int fieldEnd = fieldEnd();
+        int start = position;
+        position = fieldEnd + 1;
+        if (fieldEnd - start == 4 && buffer.get(start) == 'n') {
+            return null;
+        }
+        if (fieldEnd - start != 10 || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-') {
+            throw malformed("date");
+        }
+        return DateCache.get(digits(start, 4), digits(start + 5, 2), digits(start + 8, 2));
+    }
+
+    // Reads a single-character field such as a log record tag
+    public char nextFlag() {
+        if (binary) {
+            expectTag(TAG_FLAG);
+            return (char) buffer.get(position++);
+        }
+        int fieldEnd = fieldEnd();
+        if (fieldEnd - position != 1) {
+            throw malformed("flag");
+        }
+        char flag = (char) buffer.get(position);
+        position = fieldEnd + 1;
+        return flag;
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw malformed("date");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private void expectTag(byte tag) {
+        if (position >= end || buffer.get(position) != tag) {
+            throw malformed("field of type " + tag);
+        }
+        position++;
+    }
+
+    // Unsigned LEB128 string length
+    private int readLength() {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get(position++);
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return length;
+            }
+            if (shift > 21) {
+                throw malformed("length");
+            }
+        }
+    }
+
+    private int fieldEnd() {
+        if (position > end) {
+            throw malformed("field");
+        }
+        int i = position;
+        while (i < end && buffer.get(i) != SEPARATOR) {
+            i++;
+        }
+        return i;
+    }
+
+    private void ensureScratch(int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+    }
+
+    private DataAccessException malformed(String what) {
+        return new DataAccessException("Malformed record: bad or missing " + what + " at byte " + position);
+    }
+}
@@ -0,0 +1,131 @@
+package dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+// Streams the records of a text file through one reused RecordFields cursor
+final class RecordReader {
+    // Files are mapped a window at a time so any size works with int buffer offsets
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    // Smaller files are read onto the heap; a live mapping blocks truncating or replacing the file on Windows
+    private static final long MAP_THRESHOLD = 4L * 1024 * 1024;
+
+    private RecordReader() {}
+
+    static void forEach(File file, Consumer<RecordFields> action) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        RecordFields fields = new RecordFields();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long offset = 0;
+            boolean quoted = false;
+            while (offset < size) {
+                long length = Math.min(WINDOW_SIZE, size - offset);
+                ByteBuffer window = size < MAP_THRESHOLD
+                        ? readFully(channel, (int) length)
+                        : channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                int start = 0;
+                if (offset == 0) {
+                    start = headerLength(window, (int) length);
+                    quoted = start > 0;
+                    fields.setFormat(quoted);
+                }
+                boolean last = offset + length == size;
+                int consumed = scan(window, start, (int) length, last, quoted, fields, action);
+                if (consumed == 0) {
+                    throw new IOException("Record longer than " + WINDOW_SIZE + " bytes in " + file);
+                }
+                offset += consumed;
+            }
+        }
+    }
+
+    // True when the file starts with the version 2 header
+    static boolean isCurrentFormat(File file) throws IOException {
+        if (!file.exists() || file.length() == 0) {
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer head = readFully(channel, (int) Math.min(channel.size(), RecordWriter.HEADER.length() + 2));
+            return headerLength(head, head.capacity()) > 0;
+        }
+    }
+
+    // Length of the header line including its line break, or 0 for a version 1 file
+    private static int headerLength(ByteBuffer buffer, int limit) {
+        byte[] header = RecordWriter.HEADER.getBytes(StandardCharsets.US_ASCII);
+        if (limit < header.length) {
+            return 0;
+        }
+        for (int i = 0; i < header.length; i++) {
+            if (buffer.get(i) != header[i]) {
+                return 0;
+            }
+        }
+        int i = header.length;
+        if (i < limit && buffer.get(i) == '\r') {
+            i++;
+        }
+        if (i < limit && buffer.get(i) == '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keep reading until the buffer is full or the file ends
+        }
+        return buffer;
+    }
+
+    // Returns the number of bytes holding complete records
+    private static int scan(ByteBuffer buffer, int start, int limit, boolean last, boolean quoted,
+                            RecordFields fields, Consumer<RecordFields> action) {
+        boolean inQuotes = false;
+        for (int i = start; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (quoted && b == '"') {
+                // Doubled quotes toggle twice, so only real field quotes change the state
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes) {
+                emit(buffer, start, i, fields, action);
+                start = i + 1;
+            }
+        }
+        if (last && start < limit) {
+            emit(buffer, start, limit, fields, action);
+            start = limit;
+        }
+        return start;
+    }
+
+    private static void emit(ByteBuffer buffer, int start, int end,
+                             RecordFields fields, Consumer<RecordFields> action) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (isBlank(buffer, start, end)) {
+            return;
+        }
+        fields.reset(buffer, start, end);
+        action.accept(fields);
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if ((buffer.get(i) & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
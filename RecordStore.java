@@ -0,0 +1,25 @@
+package dao;
+
+import java.util.Collection;
+import java.util.Map;
+
+interface RecordStore<T> {
+    void load(Map<String, T> records);
+
+    // True when the files were changed by someone other than this store
+    boolean isStale();
+
+    // Called after the in-memory records already reflect the puts and deletes. Throws
+    // DataAccessException when the change could not be written, leaving the files as they were.
+    void write(Map<String, T> records, Collection<T> puts, Collection<String> deletes);
+
+    // Forces every change write() has accepted to the storage device now, whatever the durability setting;
+    // throws DataAccessException when it cannot
+    void force();
+
+    // Sizes and modification times of the files, to tell whether a snapshot still matches them
+    long[] signature();
+
+    // True while changes accepted by write() have not reached the files yet
+    boolean hasPendingChanges();
+}
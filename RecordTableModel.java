@@ -0,0 +1,66 @@
+package ui;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// Table model over the records currently on screen: one page of a listing, or the search results
+public class RecordTableModel<T> extends AbstractTableModel {
+    private final String[] columns;
+    private final int actionColumn;
+    private final BiFunction<T, Integer, Object> cellValue;
+    private List<String> ids = new ArrayList<>();
+    private List<T> records = new ArrayList<>();
+
+    public RecordTableModel(String[] columns, int actionColumn, BiFunction<T, Integer, Object> cellValue) {
+        this.columns = columns;
+        this.actionColumn = actionColumn;
+        this.cellValue = cellValue;
+    }
+
+    // Replaces the rows with one page of records
+    public void setRecords(List<T> page, Function<T, String> idOf) {
+        List<String> pageIds = new ArrayList<>(page.size());
+        for (T record : page) {
+            pageIds.add(idOf.apply(record));
+        }
+        this.ids = pageIds;
+        this.records = new ArrayList<>(page);
+        fireTableDataChanged();
+    }
+
+    public T getRow(int row) {
+        return records.get(row);
+    }
+
+    public String getId(int row) {
+        return ids.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return ids.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return cellValue.apply(getRow(row), column);
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column == actionColumn; // Only action buttons are editable
+    }
+}
@@ -0,0 +1,321 @@
+package dao;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+// Encodes records field by field straight into a buffered file channel, or into memory
+public final class RecordWriter implements Closeable {
+    // First line of every file written in the escaped, UTF-8 record format
+    static final String HEADER = "#library-records v2";
+
+    // Null for an in-memory writer, whose buffer grows instead of being flushed
+    private final FileChannel channel;
+    private ByteBuffer buffer;
+    private boolean firstField = true;
+    // Binary snapshots: tagged fields as read by RecordFields, with a running CRC of the bytes written
+    private final boolean binary;
+    private final CRC32 checksum = new CRC32();
+
+    private RecordWriter(FileChannel channel, boolean binary) {
+        this.channel = channel;
+        this.binary = binary;
+        this.buffer = channel != null ? ByteBuffer.allocateDirect(64 * 1024) : ByteBuffer.allocate(256);
+    }
+
+    static RecordWriter create(File file) throws IOException {
+        RecordWriter writer = new RecordWriter(FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), false);
+        writer.writeHeader();
+        return writer;
+    }
+
+    // Binary records start after headerSize bytes, which the caller fills in once the records are written
+    static RecordWriter createBinary(File file, int headerSize) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        channel.position(headerSize);
+        return new RecordWriter(channel, true);
+    }
+
+    // Encodes binary records into memory, for stores that place the bytes themselves
+    static RecordWriter inMemory() {
+        return new RecordWriter(null, true);
+    }
+
+    // The bytes written to an in-memory writer since its last reset
+    ByteBuffer contents() {
+        return buffer.duplicate().flip();
+    }
+
+    void reset() {
+        buffer.clear();
+        firstField = true;
+    }
+
+    static RecordWriter append(File file) throws IOException {
+        RecordWriter writer = new RecordWriter(FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), false);
+        if (writer.channel.size() == 0) {
+            writer.writeHeader();
+        }
+        return writer;
+    }
+
+    private void writeHeader() throws IOException {
+        buffer.put(HEADER.getBytes(StandardCharsets.US_ASCII));
+        buffer.put((byte) '\n');
+    }
+
+    // A null field, such as a missing author or email, is written as an empty string
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            value = "";
+        }
+        if (binary) {
+            int length = utf8Length(value);
+            ensureCapacity(6);
+            buffer.put(RecordFields.TAG_STRING);
+            for (int rest = length; ; rest >>>= 7) {
+                if (rest < 0x80) {
+                    buffer.put((byte) rest);
+                    break;
+                }
+                buffer.put((byte) (rest & 0x7F | 0x80));
+            }
+            putChars(value);
+            return;
+        }
+        startField();
+        if (!needsQuotes(value)) {
+            putChars(value);
+            return;
+        }
+        ensureCapacity(1);
+        buffer.put((byte) '"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                ensureCapacity(2);
+                buffer.put((byte) '"').put((byte) '"');
+            } else {
+                i = putChar(value, i);
+            }
+        }
+        ensureCapacity(1);
+        buffer.put((byte) '"');
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        if (binary) {
+            ensureCapacity(2);
+            buffer.put(RecordFields.TAG_BOOLEAN).put((byte) (value ? 1 : 0));
+            return;
+        }
+        startField();
+        putChars(value ? "true" : "false");
+    }
+
+    public void writeLong(long value) throws IOException {
+        if (binary) {
+            ensureCapacity(1 + Long.BYTES);
+            buffer.put(RecordFields.TAG_LONG).putLong(value);
+            return;
+        }
+        startField();
+        putChars(Long.toString(value));
+    }
+
+    // Writes yyyy-MM-dd, or the literal null
+    public void writeDate(LocalDate date) throws IOException {
+        if (binary) {
+            ensureCapacity(1 + Integer.BYTES);
+            buffer.put(RecordFields.TAG_DATE).putInt(date == null ? RecordFields.NULL_DAY : (int) date.toEpochDay());
+            return;
+        }
+        startField();
+        if (date == null) {
+            putChars("null");
+            return;
+        }
+        if (date.getYear() < 0 || date.getYear() > 9999) {
+            putChars(date.toString());
+            return;
+        }
+        ensureCapacity(10);
+        putDigits(date.getYear(), 4);
+        buffer.put((byte) '-');
+        putDigits(date.getMonthValue(), 2);
+        buffer.put((byte) '-');
+        putDigits(date.getDayOfMonth(), 2);
+    }
+
+    public void writeFlag(char flag) throws IOException {
+        if (binary) {
+            ensureCapacity(2);
+            buffer.put(RecordFields.TAG_FLAG).put((byte) flag);
+            return;
+        }
+        startField();
+        ensureCapacity(1);
+        buffer.put((byte) flag);
+    }
+
+    public void endRecord() throws IOException {
+        ensureCapacity(1);
+        buffer.put(binary ? RecordFields.TAG_END : (byte) '\n');
+        firstField = true;
+    }
+
+    public void flush() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        buffer.flip();
+        if (binary) {
+            checksum.update(buffer.duplicate());
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // CRC32 of the binary records flushed so far
+    long checksum() {
+        return checksum.getValue();
+    }
+
+    // Flushes and forces the written bytes to the storage device
+    public void sync() throws IOException {
+        flush();
+        if (channel != null) {
+            channel.force(false);
+        }
+    }
+
+    // Drops anything still buffered and cuts the file back to length, undoing a failed append
+    void truncate(long length) throws IOException {
+        buffer.clear();
+        firstField = true;
+        channel.truncate(length);
+    }
+
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    private void startField() throws IOException {
+        if (!firstField) {
+            ensureCapacity(1);
+            buffer.put((byte) ',');
+        }
+        firstField = false;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        // A leading # on the first field could be mistaken for a header line
+        return value.startsWith("#");
+    }
+
+    // Byte length of the value as putChar encodes it
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private void putChars(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            i = putChar(value, i);
+        }
+    }
+
+    // Encodes the character at index as UTF-8 and returns the index of its last char
+    private int putChar(String value, int index) throws IOException {
+        ensureCapacity(4);
+        char c = value.charAt(index);
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | (c >> 6)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            buffer.put((byte) (0xF0 | (codePoint >> 18)));
+            buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+            buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            return index + 1;
+        } else if (Character.isSurrogate(c)) {
+            buffer.put((byte) '?');
+        } else {
+            buffer.put((byte) (0xE0 | (c >> 12)));
+            buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        }
+        return index;
+    }
+
+    private void putDigits(int value, int count) {
+        int divisor = 1;
+        for (int i = 1; i < count; i++) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        if (channel != null) {
+            flush();
+            return;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        buffer = larger.put(buffer);
+    }
+}
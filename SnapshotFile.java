@@ -0,0 +1,172 @@
+package dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Binary copy of a DAO's records, read with one bulk read instead of parsing the text files.
+// The header stores the signature of the files it was taken from; when they no longer match,
+// the text files win and the snapshot is rewritten in the background.
+final class SnapshotFile<T> {
+    private static final long MAGIC = 0x4C4942534E415031L; // "LIBSNAP1"
+    // Room for the largest store signature plus the write count; shorter ones are padded with zeros
+    private static final int SIGNATURE_LONGS = 7;
+    // magic, signature, record count, payload length, payload CRC, header CRC
+    private static final int HEADER_SIZE = Long.BYTES * (1 + SIGNATURE_LONGS + 4);
+
+    private static final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final BaseDAO<T> dao;
+    private final File file;
+    private final File tempFile;
+    private ScheduledFuture<?> scheduled;
+
+    SnapshotFile(BaseDAO<T> dao) {
+        this.dao = dao;
+        this.file = new File(dao.filename + ".snap");
+        this.tempFile = new File(dao.filename + ".snap.tmp");
+    }
+
+    // Fills the records from the snapshot if it was taken of files with this signature; the caller
+    // falls back to the text files when this returns false
+    boolean load(Map<String, T> records, long[] signature) {
+        if (!file.exists()) {
+            return false;
+        }
+        try {
+            ByteBuffer data = readFully();
+            if (data.getLong(0) != MAGIC
+                    || !Arrays.equals(readSignature(data), Arrays.copyOf(signature, SIGNATURE_LONGS))) {
+                return false;
+            }
+            long count = data.getLong(Long.BYTES * (1 + SIGNATURE_LONGS));
+            long payloadLength = data.getLong(Long.BYTES * (2 + SIGNATURE_LONGS));
+            long payloadCrc = data.getLong(Long.BYTES * (3 + SIGNATURE_LONGS));
+            long headerCrc = data.getLong(Long.BYTES * (4 + SIGNATURE_LONGS));
+            if (headerCrc != crc(data, 0, HEADER_SIZE - Long.BYTES)
+                    || payloadLength != data.limit() - HEADER_SIZE
+                    || payloadCrc != crc(data, HEADER_SIZE, (int) payloadLength)) {
+                System.err.println("Ignoring damaged snapshot " + file);
+                return false;
+            }
+            RecordFields fields = new RecordFields();
+            int position = HEADER_SIZE;
+            for (long i = 0; i < count; i++) {
+                fields.resetBinary(data, position);
+                T item = dao.parseRecord(fields);
+                records.put(dao.getId(item), item);
+                position = fields.skipRecord();
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable snapshot " + file + ": " + e);
+            records.clear();
+            return false;
+        }
+    }
+
+    private ByteBuffer readFully() throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected snapshot size " + size);
+            }
+            ByteBuffer data = ByteBuffer.allocate((int) size);
+            while (data.hasRemaining() && channel.read(data) >= 0) {
+                // keep reading
+            }
+            data.flip();
+            return data;
+        }
+    }
+
+    private static long[] readSignature(ByteBuffer data) {
+        long[] signature = new long[SIGNATURE_LONGS];
+        for (int i = 0; i < SIGNATURE_LONGS; i++) {
+            signature[i] = data.getLong(Long.BYTES * (1 + i));
+        }
+        return signature;
+    }
+
+    private static long crc(ByteBuffer data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data.slice(offset, length));
+        return crc.getValue();
+    }
+
+    // Rewrites the snapshot once changes have been quiet for a while; called with the write lock held
+    void scheduleSave() {
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        scheduled = writer.schedule(this::save, StorageSettings.getSnapshotDelayMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void save() {
+        List<T> items;
+        long[] signature;
+        dao.lockForWrite();
+        try {
+            scheduled = null;
+            // Changes still waiting for a group commit would not match the files' signature yet
+            if (dao.hasPendingChanges()) {
+                scheduleSave();
+                return;
+            }
+            signature = dao.signature();
+            // Stored records are never mutated in place, so they can be written after unlocking
+            items = dao.cachedRecordList();
+        } finally {
+            dao.unlockForWrite();
+        }
+        try {
+            write(items, signature);
+        } catch (IOException e) {
+            e.printStackTrace();
+            tempFile.delete();
+        }
+    }
+
+    private void write(List<T> items, long[] signature) throws IOException {
+        long payloadCrc;
+        try (RecordWriter out = RecordWriter.createBinary(tempFile, HEADER_SIZE)) {
+            for (T item : items) {
+                dao.writeRecord(item, out);
+                out.endRecord();
+            }
+            out.flush();
+            payloadCrc = out.checksum();
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putLong(MAGIC);
+        for (long value : Arrays.copyOf(signature, SIGNATURE_LONGS)) {
+            header.putLong(value);
+        }
+        header.putLong(items.size());
+        header.putLong(tempFile.length() - HEADER_SIZE);
+        header.putLong(payloadCrc);
+        header.putLong(crc(header, 0, HEADER_SIZE - Long.BYTES));
+        header.flip();
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+        // A lost snapshot only costs one slower start, so it is not forced to disk
+        BaseDAO.moveIntoPlace(tempFile, file, false);
+    }
+}
@@ -0,0 +1,7 @@
+package dao;
+
+// A record store whose records can be restored from a SnapshotFile instead of read back from its files
+interface SnapshotStore {
+    // Called instead of load() when the records came from a snapshot of the current files
+    void loadedFromSnapshot();
+}
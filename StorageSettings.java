@@ -0,0 +1,52 @@
+package dao;
+
+public final class StorageSettings {
+    public enum Mode { TEXT, LOG, PAGED }
+    public enum Durability { SYNC, GROUP, NONE }
+
+    private StorageSettings() {}
+
+    // -Dlibrary.storage=log switches the DAOs to the append-only change log, paged to fixed-size record slots
+    public static Mode getMode() {
+        String mode = System.getProperty("library.storage", "text");
+        if (mode.equalsIgnoreCase("paged")) {
+            return Mode.PAGED;
+        }
+        return mode.equalsIgnoreCase("log") ? Mode.LOG : Mode.TEXT;
+    }
+
+    // -Dlibrary.durability=sync forces every write to disk before it returns; group batches the forces
+    // (see below) and none leaves flushing to the operating system
+    public static Durability getDurability() {
+        String durability = System.getProperty("library.durability", "sync");
+        if (durability.equalsIgnoreCase("group")) {
+            return Durability.GROUP;
+        }
+        return durability.equalsIgnoreCase("none") ? Durability.NONE : Durability.SYNC;
+    }
+
+    // Longest time a group-committed change may wait before it is forced to disk
+    public static long getGroupCommitMillis() {
+        return Long.getLong("library.groupCommit.ms", 50);
+    }
+
+    // Number of changed records that triggers a group commit without waiting for the timer
+    public static int getGroupCommitRecords() {
+        return Integer.getInteger("library.groupCommit.records", 100);
+    }
+
+    // -Dlibrary.snapshot=false turns off the binary snapshots that speed up loading
+    public static boolean isSnapshotEnabled() {
+        return !System.getProperty("library.snapshot", "true").equalsIgnoreCase("false");
+    }
+
+    // Quiet time after the last change before the snapshot is rewritten in the background
+    public static long getSnapshotDelayMillis() {
+        return Long.getLong("library.snapshot.delayMs", 2000);
+    }
+
+    // Log size in bytes after which the base file is rewritten in the background
+    public static long getCompactionThreshold() {
+        return Long.getLong("library.log.compactBytes", 1024 * 1024);
+    }
+}
@@ -0,0 +1,291 @@
+package importer;
+
+import dao.BookDAO;
+import dao.DataAccessException;
+import dao.DuplicateKeyException;
+import dao.IssueDAO;
+import dao.LibraryRepository;
+import dao.StorageSettings;
+import dao.VersionConflictException;
+import model.Book;
+import model.Issue;
+import model.Member;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Concurrency check for the DAOs: several processes, each with several threads, issue and return
+// books and bump a shared counter through read-modify-write updates on the same data directory.
+// Afterwards it checks that no update was lost and that book availability agrees with the open issues.
+// It writes its own books, members and issues, so it refuses to run where data files already exist.
+//
+// Usage: java importer.StressTest [processes] [threads] [operations per thread]
+public class StressTest {
+    private static final int BOOKS = 20;
+    private static final int MEMBERS = 5;
+    private static final String COUNTER_ID = "COUNTER";
+    private static final String RESULT = "RESULT ";
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong returned = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong increments = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private volatile Throwable failure;
+
+    // Runs in each child process: threads work through their operations, then the totals are printed
+    private void runWorker(int worker, int threads, int operations) throws InterruptedException {
+        LibraryRepository repository = LibraryRepository.getInstance();
+        List<Thread> running = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = worker * 1000L + t;
+            Thread thread = new Thread(() -> {
+                try {
+                    work(repository, new Random(seed), operations);
+                } catch (Throwable e) {
+                    failure = e;
+                }
+            }, "stress-" + worker + "-" + t);
+            thread.start();
+            running.add(thread);
+        }
+        for (Thread thread : running) {
+            thread.join();
+        }
+        if (failure != null) {
+            failure.printStackTrace();
+            System.exit(1);
+        }
+        System.out.println("Worker " + worker + ": issued " + issued + ", returned " + returned
+                + ", rejected " + rejected + ", increments " + increments + ", version conflicts " + conflicts);
+        System.out.println(RESULT + issued + " " + returned + " " + increments);
+    }
+
+    private void work(LibraryRepository repository, Random random, int operations) {
+        BookDAO bookDAO = repository.getBookDAO();
+        IssueDAO issueDAO = repository.getIssueDAO();
+        for (int op = 0; op < operations; op++) {
+            String bookId = "B" + (1 + random.nextInt(BOOKS));
+            switch (op % 3) {
+                case 0:
+                    increment(bookDAO);
+                    break;
+                case 1:
+                    String memberId = "M" + (1 + random.nextInt(MEMBERS));
+                    try {
+                        repository.issueBook(new Issue(repository.nextIssueId(), bookId, memberId, LocalDate.now()));
+                        issued.incrementAndGet();
+                    } catch (DuplicateKeyException e) {
+                        throw e;
+                    } catch (DataAccessException e) {
+                        rejectUnlessFailed(e);
+                    }
+                    break;
+                default:
+                    for (Issue issue : issueDAO.getIssuesByBookId(bookId)) {
+                        if (issue.getReturnDate() != null) {
+                            continue;
+                        }
+                        try {
+                            if (repository.returnBook(issue.getIssueId(), LocalDate.now())) {
+                                returned.incrementAndGet();
+                            }
+                        } catch (DataAccessException e) {
+                            rejectUnlessFailed(e);
+                        }
+                    }
+            }
+        }
+    }
+
+    // Reads the counter, adds one and writes it back, starting over whenever another writer got in first
+    private void increment(BookDAO bookDAO) {
+        while (true) {
+            Book counter = bookDAO.getBookById(COUNTER_ID);
+            counter.setTitle(Long.toString(Long.parseLong(counter.getTitle()) + 1));
+            try {
+                bookDAO.updateBook(counter);
+                increments.incrementAndGet();
+                return;
+            } catch (VersionConflictException e) {
+                conflicts.incrementAndGet();
+            }
+        }
+    }
+
+    // A book already out or an issue returned by another thread is expected; an I/O failure is not
+    private void rejectUnlessFailed(DataAccessException e) {
+        if (e.getCause() != null) {
+            throw e;
+        }
+        rejected.incrementAndGet();
+    }
+
+    private static void setUp() {
+        LibraryRepository repository = LibraryRepository.getInstance();
+        List<Book> books = new ArrayList<>();
+        for (int i = 1; i <= BOOKS; i++) {
+            books.add(new Book("B" + i, "Stress book " + i, "Author " + i, "ISBN-" + i));
+        }
+        books.add(new Book(COUNTER_ID, "0", "", ""));
+        List<Member> members = new ArrayList<>();
+        for (int i = 1; i <= MEMBERS; i++) {
+            members.add(new Member("M" + i, "Member " + i, "member" + i + "@example.com"));
+        }
+        if (repository.getBookDAO().addBooks(books).hasFailures()
+                || repository.getMemberDAO().addMembers(members).hasFailures()) {
+            throw new DataAccessException("Could not add the stress test books and members");
+        }
+    }
+
+    // Starts one child JVM with the same class path and library settings as this one
+    private static Process start(List<String> arguments, File output) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("library.")) {
+                command.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        command.add(StressTest.class.getName());
+        command.addAll(arguments);
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(output)
+                .start();
+    }
+
+    // Runs a child to completion and returns its output; a failed child fails the whole test
+    private static List<String> await(Process process, File output) throws IOException, InterruptedException {
+        int status = process.waitFor();
+        List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+        for (String line : lines) {
+            if (!line.startsWith(RESULT)) {
+                System.out.println(line);
+            }
+        }
+        if (status != 0) {
+            throw new IllegalStateException("A stress test process failed; see " + output);
+        }
+        return lines;
+    }
+
+    // Compares the data on disk with what the workers reported; returns the problems found
+    private static List<String> verify(long issued, long returned, long increments) {
+        List<String> problems = new ArrayList<>();
+        LibraryRepository repository = LibraryRepository.getInstance();
+        Book counter = repository.getBookDAO().getBookById(COUNTER_ID);
+        if (Long.parseLong(counter.getTitle()) != increments) {
+            problems.add("Counter is " + counter.getTitle() + " after " + increments + " increments");
+        }
+        List<Issue> issues = repository.getIssueDAO().getAllIssues();
+        if (issues.size() != issued) {
+            problems.add(issues.size() + " issues stored, " + issued + " issued");
+        }
+        long closed = issues.stream().filter(issue -> issue.getReturnDate() != null).count();
+        if (closed != returned) {
+            problems.add(closed + " issues returned on disk, " + returned + " returns reported");
+        }
+        Map<String, Integer> open = new HashMap<>();
+        for (Issue issue : issues) {
+            if (issue.getReturnDate() == null) {
+                open.merge(issue.getBookId(), 1, Integer::sum);
+            }
+        }
+        for (Book book : repository.getBookDAO().getAllBooks()) {
+            if (book.getBookId().equals(COUNTER_ID)) {
+                continue;
+            }
+            int openIssues = open.getOrDefault(book.getBookId(), 0);
+            if (openIssues > 1) {
+                problems.add("Book " + book.getBookId() + " is out on " + openIssues + " issues at once");
+            }
+            if (book.isAvailable() != (openIssues == 0)) {
+                problems.add("Book " + book.getBookId() + " is " + (book.isAvailable() ? "available" : "unavailable")
+                        + " with " + openIssues + " open issue(s)");
+            }
+        }
+        return problems;
+    }
+
+    private static void runTest(int processes, int threads, int operations) throws IOException, InterruptedException {
+        File setupOutput = new File("stress-setup.out");
+        await(start(List.of("setup"), setupOutput), setupOutput);
+
+        long started = System.nanoTime();
+        List<Process> workers = new ArrayList<>();
+        for (int p = 0; p < processes; p++) {
+            workers.add(start(List.of("worker", Integer.toString(p), Integer.toString(threads),
+                    Integer.toString(operations)), new File("stress-worker-" + p + ".out")));
+        }
+        long issued = 0;
+        long returned = 0;
+        long increments = 0;
+        for (int p = 0; p < processes; p++) {
+            for (String line : await(workers.get(p), new File("stress-worker-" + p + ".out"))) {
+                if (line.startsWith(RESULT)) {
+                    String[] totals = line.substring(RESULT.length()).split(" ");
+                    issued += Long.parseLong(totals[0]);
+                    returned += Long.parseLong(totals[1]);
+                    increments += Long.parseLong(totals[2]);
+                }
+            }
+        }
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        long total = (long) processes * threads * operations;
+        System.out.println(total + " operations in " + elapsedMs + " ms ("
+                + total * 1000 / Math.max(1, elapsedMs) + "/s)");
+
+        List<String> problems = verify(issued, returned, increments);
+        if (!problems.isEmpty()) {
+            problems.forEach(problem -> System.err.println("FAILED: " + problem));
+            System.exit(1);
+        }
+        System.out.println("OK: no lost updates, and book availability matches the open issues");
+    }
+
+    public static void main(String[] args) {
+        try {
+            if (args.length > 0 && args[0].equals("setup")) {
+                setUp();
+                System.exit(0);
+            }
+            if (args.length > 0 && args[0].equals("worker")) {
+                new StressTest().runWorker(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                        Integer.parseInt(args[3]));
+                System.exit(0);
+            }
+            File[] existing = new File(".").listFiles((dir, name) -> name.startsWith("books.txt")
+                    || name.startsWith("members.txt") || name.startsWith("issues.txt"));
+            if (existing != null && existing.length > 0) {
+                System.err.println("Run the stress test from an empty directory; it writes its own library data");
+                System.exit(2);
+            }
+            if (StorageSettings.getMode() == StorageSettings.Mode.TEXT
+                    && StorageSettings.getDurability() == StorageSettings.Durability.GROUP) {
+                System.err.println("Text files in group durability mode cannot be shared between processes;"
+                        + " use another durability or storage mode");
+                System.exit(2);
+            }
+            int processes = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+            int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+            int operations = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+            runTest(processes, threads, operations);
+        } catch (IOException | IllegalStateException | DataAccessException e) {
+            System.err.println("Stress test failed: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
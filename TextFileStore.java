@@ -0,0 +1,107 @@
+package dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+class TextFileStore<T> implements RecordStore<T>, SnapshotStore {
+    private final BaseDAO<T> dao;
+    private final File file;
+    private long loadedModified = -1;
+    private long loadedLength = -1;
+    private final StorageSettings.Durability durability = StorageSettings.getDurability();
+    // Under group commit the file is rewritten once per batch rather than once per change
+    private final GroupCommit group;
+    private Map<String, T> pendingRecords;
+
+    TextFileStore(BaseDAO<T> dao) {
+        this.dao = dao;
+        this.file = new File(dao.filename);
+        this.group = durability == StorageSettings.Durability.GROUP
+                ? new GroupCommit(dao, this::rewritePending)
+                : null;
+    }
+
+    @Override
+    public void load(Map<String, T> records) {
+        try {
+            dao.readRecords(file, item -> {
+                if (records.put(dao.getId(item), item) != null) {
+                    System.err.println("Duplicate ID " + dao.getId(item) + " in " + dao.filename + ", keeping the last row");
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        markLoaded();
+    }
+
+    @Override
+    public boolean isStale() {
+        // Changes waiting for their group commit are newer than anything on disk
+        if (hasPendingChanges()) {
+            return false;
+        }
+        return file.lastModified() != loadedModified || file.length() != loadedLength || dao.writtenElsewhere();
+    }
+
+    @Override
+    public void write(Map<String, T> records, Collection<T> puts, Collection<String> deletes) {
+        if (group != null) {
+            pendingRecords = records;
+            group.recorded(puts.size() + deletes.size());
+            return;
+        }
+        rewrite(records, durability == StorageSettings.Durability.SYNC);
+    }
+
+    private void rewritePending() {
+        rewrite(pendingRecords, true);
+        pendingRecords = null;
+    }
+
+    // The old file stays in place until the new one is complete, so a failure leaves it untouched
+    private void rewrite(Map<String, T> records, boolean sync) {
+        try {
+            dao.replaceRecords(file, records.values(), sync);
+        } catch (IOException e) {
+            throw new DataAccessException("Could not save " + dao.filename, e);
+        }
+        dao.fileChanged();
+        markLoaded();
+    }
+
+    @Override
+    public void force() {
+        if (hasPendingChanges()) {
+            group.commitNow();
+        } else if (durability == StorageSettings.Durability.NONE) {
+            try {
+                BaseDAO.force(file);
+            } catch (IOException e) {
+                throw new DataAccessException("Could not force " + dao.filename + " to disk", e);
+            }
+        }
+    }
+
+    @Override
+    public long[] signature() {
+        return new long[] { file.length(), file.lastModified() };
+    }
+
+    @Override
+    public boolean hasPendingChanges() {
+        return group != null && group.hasPending();
+    }
+
+    @Override
+    public void loadedFromSnapshot() {
+        markLoaded();
+    }
+
+    private void markLoaded() {
+        loadedModified = file.lastModified();
+        loadedLength = file.length();
+    }
+}
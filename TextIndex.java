@@ -0,0 +1,318 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+// Inverted index from lower-cased word tokens to record IDs, searched by token prefix
+final class TextIndex {
+    // Each posting is a lone ID String, or a Set of IDs once a second record shares the token
+    private final Map<String, Object> postings = new HashMap<>();
+    // Sorted vocabulary for prefix lookups; only touched when a token appears or disappears
+    private final NavigableSet<String> vocabulary = new TreeSet<>();
+    // Trigrams of each word token to the tokens containing them, for typo-tolerant lookups
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+
+    void add(String id, String... texts) {
+        for (String text : texts) {
+            for (String token : tokenize(text)) {
+                Object ids = postings.get(token);
+                if (ids == null) {
+                    postings.put(token, id);
+                    addToken(token);
+                } else if (ids instanceof String) {
+                    if (!ids.equals(id)) {
+                        Set<String> set = new HashSet<>(4);
+                        set.add((String) ids);
+                        set.add(id);
+                        postings.put(token, set);
+                    }
+                } else {
+                    asSet(ids).add(id);
+                }
+            }
+        }
+    }
+
+    void remove(String id, String... texts) {
+        for (String text : texts) {
+            for (String token : tokenize(text)) {
+                Object ids = postings.get(token);
+                if (ids == null) {
+                    continue;
+                }
+                if (ids instanceof String) {
+                    if (ids.equals(id)) {
+                        postings.remove(token);
+                        removeToken(token);
+                    }
+                } else {
+                    Set<String> set = asSet(ids);
+                    set.remove(id);
+                    if (set.size() == 1) {
+                        postings.put(token, set.iterator().next());
+                    }
+                }
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+        vocabulary.clear();
+        trigrams.clear();
+    }
+
+    private void addToken(String token) {
+        vocabulary.add(token);
+        if (hasLetter(token)) {
+            for (String gram : trigramsOf(token)) {
+                trigrams.computeIfAbsent(gram, k -> new HashSet<>()).add(token);
+            }
+        }
+    }
+
+    private void removeToken(String token) {
+        vocabulary.remove(token);
+        if (hasLetter(token)) {
+            for (String gram : trigramsOf(token)) {
+                Set<String> tokens = trigrams.get(gram);
+                if (tokens != null) {
+                    tokens.remove(token);
+                    if (tokens.isEmpty()) {
+                        trigrams.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    // IDs of the records that have, for every term, a token starting with that term
+    Set<String> search(List<String> terms) {
+        Set<String> result = null;
+        for (String term : terms) {
+            result = prefixMatches(term, result);
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result != null ? result : new HashSet<>();
+    }
+
+    private Set<String> prefixMatches(String term, Set<String> within) {
+        Set<String> matches = new HashSet<>();
+        for (String token : vocabulary.tailSet(term, true)) {
+            if (!token.startsWith(term)) {
+                break;
+            }
+            Object ids = postings.get(token);
+            if (ids instanceof String) {
+                if (within == null || within.contains(ids)) {
+                    matches.add((String) ids);
+                }
+            } else if (within == null) {
+                matches.addAll(asSet(ids));
+            } else {
+                // Probe the narrower side so later terms cost no more than the running result
+                Set<String> set = asSet(ids);
+                Set<String> small = within.size() < set.size() ? within : set;
+                Set<String> large = small == within ? set : within;
+                for (String id : small) {
+                    if (large.contains(id)) {
+                        matches.add(id);
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    // Record ID to the summed edit distance of its closest token for every term; prefix hits count as 0
+    Map<String, Integer> fuzzySearch(List<String> terms) {
+        Map<String, Integer> result = null;
+        for (String term : terms) {
+            Map<String, Integer> termHits = new HashMap<>();
+            for (Map.Entry<String, Integer> similar : similarTokens(term).entrySet()) {
+                int distance = similar.getValue();
+                forEachId(postings.get(similar.getKey()), id -> termHits.merge(id, distance, Math::min));
+            }
+            if (result == null) {
+                result = termHits;
+            } else {
+                Map<String, Integer> merged = new HashMap<>();
+                for (Map.Entry<String, Integer> hit : termHits.entrySet()) {
+                    Integer previous = result.get(hit.getKey());
+                    if (previous != null) {
+                        merged.put(hit.getKey(), previous + hit.getValue());
+                    }
+                }
+                result = merged;
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result != null ? result : new HashMap<>();
+    }
+
+    // Tokens within the allowed edit distance of the term, found through shared trigrams
+    private Map<String, Integer> similarTokens(String term) {
+        Map<String, Integer> similar = new HashMap<>();
+        for (String token : vocabulary.tailSet(term, true)) {
+            if (!token.startsWith(term)) {
+                break;
+            }
+            similar.put(token, 0);
+        }
+        int maxDistance = term.length() <= 2 ? 0 : term.length() <= 4 ? 1 : 2;
+        if (maxDistance == 0) {
+            return similar;
+        }
+        List<String> grams = trigramsOf(term);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            Set<String> tokens = trigrams.get(gram);
+            if (tokens != null) {
+                for (String token : tokens) {
+                    shared.merge(token, 1, Integer::sum);
+                }
+            }
+        }
+        // A substitution, insertion or deletion destroys at most three trigrams and an adjacent transposition
+        // four, so closer words must share the rest. Candidates come from the trigram postings, so a
+        // short word that an edit leaves with no trigram in common (such as "cat" and "cut") is still
+        // missed; transpositions, where this is most likely, are looked up directly below.
+        int minShared = Math.max(1, grams.size() - 4 * maxDistance);
+        for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+            String token = candidate.getKey();
+            if (candidate.getValue() < minShared || similar.containsKey(token)) {
+                continue;
+            }
+            int distance = EditDistance.bounded(term, token, maxDistance);
+            if (distance <= maxDistance) {
+                similar.put(token, distance);
+            }
+        }
+        for (int i = 0; i + 1 < term.length(); i++) {
+            char[] swapped = term.toCharArray();
+            swapped[i] = term.charAt(i + 1);
+            swapped[i + 1] = term.charAt(i);
+            String token = new String(swapped);
+            if (!similar.containsKey(token) && vocabulary.contains(token)) {
+                similar.put(token, 1);
+            }
+        }
+        return similar;
+    }
+
+    private static List<String> trigramsOf(String token) {
+        String padded = "$" + token + "$";
+        List<String> grams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static boolean hasLetter(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (Character.isLetter(token.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void forEachId(Object ids, Consumer<String> action) {
+        if (ids instanceof String) {
+            action.accept((String) ids);
+        } else if (ids != null) {
+            asSet(ids).forEach(action);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> asSet(Object ids) {
+        return (Set<String>) ids;
+    }
+
+    // Splits on anything that is not a letter or digit; hyphenated numbers such as ISBNs stay whole
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (isJoiningHyphen(text, i)) {
+                continue;
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    // True when every term starts a token of at least one of the texts, the same rule search() applies
+    static boolean matchesAll(List<String> terms, String... texts) {
+        for (String term : terms) {
+            boolean found = false;
+            for (int t = 0; t < texts.length && !found; t++) {
+                found = score(term, texts[t]) > 0;
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 2 when the term is a whole token of the text, 1 when it only starts one, 0 otherwise
+    private static int score(String term, String text) {
+        int best = 0;
+        int i = 0;
+        while (i < text.length() && best < 2) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int end = i;
+            int matched = 0;
+            while (end < text.length()
+                    && (Character.isLetterOrDigit(text.charAt(end)) || isJoiningHyphen(text, end))) {
+                char c = text.charAt(end);
+                if (c != '-' && matched >= 0 && matched < term.length()) {
+                    matched = Character.toLowerCase(c) == term.charAt(matched) ? matched + 1 : -1;
+                } else if (c != '-' && matched == term.length()) {
+                    matched = term.length() + 1;
+                }
+                end++;
+            }
+            if (matched == term.length()) {
+                best = 2;
+            } else if (matched > term.length()) {
+                best = 1;
+            }
+            i = end;
+        }
+        return best;
+    }
+
+    private static boolean isJoiningHyphen(String text, int i) {
+        return text.charAt(i) == '-' && i > 0 && i + 1 < text.length()
+                && Character.isDigit(text.charAt(i - 1)) && Character.isDigit(text.charAt(i + 1));
+    }
+}
@@ -1,62 +1,87 @@
-package utils;
-
-import javax.swing.*;
-import java.awt.*;
-
-public class UIUtils {
-    public static final Color PRIMARY_COLOR = new Color(41, 128, 185);
-    public static final Color SECONDARY_COLOR = new Color(52, 152, 219);
-    public static final Color BACKGROUND_COLOR = new Color(236, 240, 241);
-    public static final Color TEXT_COLOR = new Color(44, 62, 80);
-    
-    public static void setButtonStyle(JButton button) {
-        button.setBackground(PRIMARY_COLOR);
-        button.setForeground(Color.WHITE);
-        button.setFocusPainted(false);
-        button.setBorderPainted(false);
-        button.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
-    }
-    
-    public static void setTextFieldStyle(JTextField textField) {
-        textField.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        textField.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createLineBorder(PRIMARY_COLOR),
-            BorderFactory.createEmptyBorder(5, 5, 5, 5)
-        ));
-    }
-    
-    public static void setLabelStyle(JLabel label) {
-        label.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        label.setForeground(TEXT_COLOR);
-    }
-    
-    public static void setTableStyle(JTable table) {
-        table.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        table.setRowHeight(25);
-        table.setGridColor(PRIMARY_COLOR);
-        table.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 14));
-        table.getTableHeader().setBackground(PRIMARY_COLOR);
-        table.getTableHeader().setForeground(Color.WHITE);
-    }
-    
-    public static void centerWindow(Window window) {
-        Dimension dimension = Toolkit.getDefaultToolkit().getScreenSize();
-        int x = (int) ((dimension.getWidth() - window.getWidth()) / 2);
-        int y = (int) ((dimension.getHeight() - window.getHeight()) / 2);
-        window.setLocation(x, y);
-    }
-    
-    public static void showError(Component parent, String message) {
-        JOptionPane.showMessageDialog(parent, message, "Error", JOptionPane.ERROR_MESSAGE);
-    }
-    
-    public static void showSuccess(Component parent, String message) {
-        JOptionPane.showMessageDialog(parent, message, "Success", JOptionPane.INFORMATION_MESSAGE);
-    }
-    
-    public static boolean showConfirm(Component parent, String message) {
-        return JOptionPane.showConfirmDialog(parent, message, "Confirm", 
-            JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
-    }
+package utils;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+
+public class UIUtils {
+    public static final Color PRIMARY_COLOR = new Color(41, 128, 185);
+    public static final Color SECONDARY_COLOR = new Color(52, 152, 219);
+    public static final Color BACKGROUND_COLOR = new Color(236, 240, 241);
+    public static final Color TEXT_COLOR = new Color(44, 62, 80);
+    
+    public static void setButtonStyle(JButton button) {
+        button.setBackground(PRIMARY_COLOR);
+        button.setForeground(Color.WHITE);
+        button.setFocusPainted(false);
+        button.setBorderPainted(false);
+        button.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
+    }
+    
+    public static void setTextFieldStyle(JTextField textField) {
+        textField.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        textField.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(PRIMARY_COLOR),
+            BorderFactory.createEmptyBorder(5, 5, 5, 5)
+        ));
+    }
+    
+    public static void setLabelStyle(JLabel label) {
+        label.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        label.setForeground(TEXT_COLOR);
+    }
+    
+    public static void setTableStyle(JTable table) {
+        table.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        table.setRowHeight(25);
+        table.setGridColor(PRIMARY_COLOR);
+        table.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 14));
+        table.getTableHeader().setBackground(PRIMARY_COLOR);
+        table.getTableHeader().setForeground(Color.WHITE);
+    }
+    
+    // Runs the action once the field's text has stopped changing for the given delay
+    public static Timer debounce(JTextField textField, int delayMillis, Runnable action) {
+        Timer timer = new Timer(delayMillis, e -> action.run());
+        timer.setRepeats(false);
+        textField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+        });
+        return timer;
+    }
+    
+    public static void centerWindow(Window window) {
+        Dimension dimension = Toolkit.getDefaultToolkit().getScreenSize();
+        int x = (int) ((dimension.getWidth() - window.getWidth()) / 2);
+        int y = (int) ((dimension.getHeight() - window.getHeight()) / 2);
+        window.setLocation(x, y);
+    }
+    
+    public static void showError(Component parent, String message) {
+        JOptionPane.showMessageDialog(parent, message, "Error", JOptionPane.ERROR_MESSAGE);
+    }
+    
+    public static void showSuccess(Component parent, String message) {
+        JOptionPane.showMessageDialog(parent, message, "Success", JOptionPane.INFORMATION_MESSAGE);
+    }
+    
+    public static boolean showConfirm(Component parent, String message) {
+        return JOptionPane.showConfirmDialog(parent, message, "Confirm", 
+            JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
+    }
 } 
\ No newline at end of file
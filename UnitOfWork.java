@@ -0,0 +1,284 @@
+package dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+// Changes to several DAOs that reach the files together or not at all.
+// The body runs with every DAO write-locked, in this and other processes; its changes are journaled and synced before any data file
+// is touched, and the journal is only deleted once every data file has been written and forced to disk. A journal left behind
+// by a crash or a failed write is finished by the next unit, or by recover() on the next start.
+public final class UnitOfWork {
+    static final File JOURNAL = new File("transactions.journal");
+    // Taken after the DAO locks by every unit in every process, so the journal is only ever read, written or deleted by the
+    // unit holding it; any journal found under it belongs to a unit that is no longer running
+    private static final ProcessLock journalLock = ProcessLock.forFile(JOURNAL);
+
+    private static final char PUT = 'P';
+    private static final char DELETE = 'D';
+    private static final char COMMIT = 'C';
+
+    private final List<BaseDAO<?>> daos;
+    // Per DAO: record ID to the record as it was before this unit first touched it
+    private final Map<BaseDAO<?>, Map<String, Object>> originals = new LinkedHashMap<>();
+
+    private UnitOfWork(List<BaseDAO<?>> daos) {
+        this.daos = daos;
+    }
+
+    // Runs the body as one unit over the given DAOs; any exception it throws rolls every change back
+    public static void run(List<BaseDAO<?>> daos, Consumer<UnitOfWork> body) {
+        List<BaseDAO<?>> ordered = new ArrayList<>(daos);
+        // A fixed lock order keeps two concurrent units from deadlocking
+        ordered.sort(Comparator.comparing(dao -> dao.filename));
+        UnitOfWork work = new UnitOfWork(ordered);
+        work.lockAndRun(0, body);
+    }
+
+    private void lockAndRun(int index, Consumer<UnitOfWork> body) {
+        if (index < daos.size()) {
+            BaseDAO<?> dao = daos.get(index);
+            dao.lockForWrite();
+            try {
+                lockAndRun(index + 1, body);
+            } finally {
+                dao.unlockForWrite();
+            }
+            return;
+        }
+        journalLock.acquire();
+        try {
+            for (BaseDAO<?> dao : daos) {
+                dao.prepare();
+            }
+            finishJournal();
+            try {
+                body.accept(this);
+            } catch (RuntimeException e) {
+                rollback();
+                throw e;
+            }
+            commit();
+        } finally {
+            journalLock.release();
+        }
+    }
+
+    public <T> T get(BaseDAO<T> dao, String id) {
+        checkEnlisted(dao);
+        return dao.peekCopy(id);
+    }
+
+    public <T> void insert(BaseDAO<T> dao, T item) {
+        checkEnlisted(dao);
+        dao.validate(item);
+        String id = dao.getId(item);
+        if (dao.peek(id) != null) {
+            throw new DuplicateKeyException(id);
+        }
+        remember(dao, id);
+        dao.applyPut(item);
+    }
+
+    // Versioned records are compared against the version they were read at, as in BaseDAO.replace
+    public <T> void update(BaseDAO<T> dao, T item) {
+        checkEnlisted(dao);
+        dao.validate(item);
+        String id = dao.getId(item);
+        if (dao.peek(id) == null) {
+            throw new DataAccessException("No record with ID " + id + " exists");
+        }
+        remember(dao, id);
+        dao.savedAs(item, dao.applyUpdate(item));
+    }
+
+    public <T> void delete(BaseDAO<T> dao, String id) {
+        checkEnlisted(dao);
+        remember(dao, id);
+        dao.applyRemove(id);
+    }
+
+    private void checkEnlisted(BaseDAO<?> dao) {
+        if (!daos.contains(dao)) {
+            throw new IllegalArgumentException(dao.filename + " is not part of this unit of work");
+        }
+    }
+
+    private <T> void remember(BaseDAO<T> dao, String id) {
+        Map<String, Object> changed = originals.computeIfAbsent(dao, d -> new LinkedHashMap<>());
+        if (!changed.containsKey(id)) {
+            changed.put(id, dao.peek(id));
+        }
+    }
+
+    private void rollback() {
+        for (Map.Entry<BaseDAO<?>, Map<String, Object>> entry : originals.entrySet()) {
+            restoreAll(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void restoreAll(BaseDAO<T> dao, Map<String, Object> changed) {
+        for (Map.Entry<String, Object> original : changed.entrySet()) {
+            dao.restore(original.getKey(), (T) original.getValue());
+        }
+    }
+
+    private void commit() {
+        if (originals.isEmpty()) {
+            return;
+        }
+        try {
+            writeJournal();
+        } catch (IOException e) {
+            rollback();
+            JOURNAL.delete();
+            throw new DataAccessException("Could not write the transaction journal", e);
+        }
+        // From here on the journal is the record of truth; a crash or failed write below is repaired from it
+        persistAll();
+        JOURNAL.delete();
+    }
+
+    // Writes every changed record and forces each store to disk; throws, keeping the journal, if any of it fails
+    private void persistAll() {
+        try {
+            for (Map.Entry<BaseDAO<?>, Map<String, Object>> entry : originals.entrySet()) {
+                persist(entry.getKey(), entry.getValue().keySet());
+            }
+            for (BaseDAO<?> dao : originals.keySet()) {
+                dao.force();
+            }
+        } catch (DataAccessException e) {
+            throw new DataAccessException("The change was kept in " + JOURNAL
+                    + " but could not be saved to the data files; it will be completed by the next change or restart", e);
+        }
+    }
+
+    private void writeJournal() throws IOException {
+        try (RecordWriter out = RecordWriter.create(JOURNAL)) {
+            for (Map.Entry<BaseDAO<?>, Map<String, Object>> entry : originals.entrySet()) {
+                journal(entry.getKey(), entry.getValue().keySet(), out);
+            }
+            out.writeFlag(COMMIT);
+            out.endRecord();
+            out.sync();
+        }
+    }
+
+    private static <T> void journal(BaseDAO<T> dao, Iterable<String> ids, RecordWriter out) throws IOException {
+        for (String id : ids) {
+            T item = dao.peek(id);
+            if (item != null) {
+                out.writeFlag(PUT);
+                out.writeString(dao.filename);
+                dao.writeRecord(item, out);
+            } else {
+                out.writeFlag(DELETE);
+                out.writeString(dao.filename);
+                out.writeString(id);
+            }
+            out.endRecord();
+        }
+    }
+
+    private static <T> void persist(BaseDAO<T> dao, Iterable<String> ids) {
+        List<T> puts = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        for (String id : ids) {
+            T item = dao.peek(id);
+            if (item != null) {
+                puts.add(item);
+            } else {
+                deletes.add(id);
+            }
+        }
+        dao.persist(puts, deletes);
+    }
+
+    // Finishes a journal left behind by a crash or a failed write, taking the same locks as a unit; called on start
+    static void recover(List<BaseDAO<?>> daos) {
+        // Only a hint: whether there is anything to finish is decided again under the locks
+        if (!JOURNAL.exists()) {
+            return;
+        }
+        try {
+            run(daos, work -> {});
+        } catch (DataAccessException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Called with the DAO locks and the journal lock held, before the body. A committed journal is replayed and
+    // saved; one without its commit mark was never acted on and is discarded.
+    private void finishJournal() {
+        if (!JOURNAL.exists()) {
+            return;
+        }
+        Map<String, BaseDAO<?>> byFile = new HashMap<>();
+        for (BaseDAO<?> dao : daos) {
+            byFile.put(dao.filename, dao);
+        }
+        List<Consumer<UnitOfWork>> replay = new ArrayList<>();
+        Set<String> missing = new TreeSet<>();
+        boolean[] committed = {false};
+        try {
+            RecordReader.forEach(JOURNAL, fields -> {
+                char tag = fields.nextFlag();
+                if (tag == COMMIT) {
+                    committed[0] = true;
+                    return;
+                }
+                String filename = fields.nextString();
+                BaseDAO<?> dao = byFile.get(filename);
+                if (dao != null) {
+                    replay.add(replayEntry(dao, tag, fields));
+                } else {
+                    missing.add(filename);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Discarding unreadable transaction journal: " + e.getMessage());
+            committed[0] = false;
+        }
+        if (!committed[0]) {
+            JOURNAL.delete();
+            return;
+        }
+        if (!missing.isEmpty()) {
+            throw new DataAccessException("An unfinished change to " + String.join(", ", missing)
+                    + " must be completed first; restart the application to recover it");
+        }
+        replay.forEach(entry -> entry.accept(this));
+        persistAll();
+        JOURNAL.delete();
+        // The replayed changes are saved; the body's rollback must not undo them
+        originals.clear();
+    }
+
+    // Replays are blind puts and deletes, as the files may already hold the change if the crash came late.
+    // A versioned record that was saved again since, outside any unit, keeps the newer version.
+    private static <T> Consumer<UnitOfWork> replayEntry(BaseDAO<T> dao, char tag, RecordFields fields) {
+        if (tag == PUT) {
+            T item = dao.parseRecord(fields);
+            return work -> {
+                T current = dao.peek(dao.getId(item));
+                if (current != null && dao.isVersioned() && dao.getVersion(current) > dao.getVersion(item)) {
+                    return;
+                }
+                work.remember(dao, dao.getId(item));
+                dao.applyPut(item);
+            };
+        }
+        String id = fields.nextString();
+        return work -> work.delete(dao, id);
+    }
+}
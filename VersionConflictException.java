@@ -0,0 +1,23 @@
+package dao;
+
+public class VersionConflictException extends DataAccessException {
+    private final String id;
+    private final long expectedVersion;
+    private final long actualVersion;
+
+    // actualVersion is -1 when the record was deleted
+    public VersionConflictException(String id, long expectedVersion, long actualVersion) {
+        super(actualVersion < 0
+                ? "Record " + id + " was deleted by someone else"
+                : "Record " + id + " was changed by someone else; reopen it to see the latest version");
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public String getId() { return id; }
+
+    public long getExpectedVersion() { return expectedVersion; }
+
+    public long getActualVersion() { return actualVersion; }
+}